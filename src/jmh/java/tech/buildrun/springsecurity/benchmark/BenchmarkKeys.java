@@ -0,0 +1,55 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import org.springframework.security.converter.RsaKeyConverters;
+
+/**
+ * Carrega o par de chaves RSA da aplicação ({@code app.pub}/{@code app.key})
+ * para que os benchmarks de JWT usem o mesmo tamanho de chave que produção.
+ *
+ * @author Emanuel
+ */
+final class BenchmarkKeys {
+
+  private BenchmarkKeys() {
+  }
+
+  /**
+   * Lê a chave pública da aplicação.
+   *
+   * @return chave pública RSA.
+   */
+  static RSAPublicKey publicKey() {
+    try (InputStream in = resource("/app.pub")) {
+      return RsaKeyConverters.x509().convert(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Lê a chave privada da aplicação.
+   *
+   * @return chave privada RSA.
+   */
+  static RSAPrivateKey privateKey() {
+    try (InputStream in = resource("/app.key")) {
+      return RsaKeyConverters.pkcs8().convert(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static InputStream resource(String name) {
+    var in = BenchmarkKeys.class.getResourceAsStream(name);
+    if (in == null) {
+      throw new IllegalStateException("missing classpath resource " + name);
+    }
+    return in;
+  }
+}
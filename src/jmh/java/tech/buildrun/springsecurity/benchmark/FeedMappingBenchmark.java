@@ -0,0 +1,68 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.entities.Tweet;
+import tech.buildrun.springsecurity.entities.User;
+
+/**
+ * Custo do mapeamento de entidades {@link Tweet} para {@link FeedItemDto}, por
+ * tamanho de página.
+ *
+ * @author Emanuel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedMappingBenchmark {
+
+  @Param({ "10", "50", "200" })
+  public int pageSize;
+
+  private List<Tweet> tweets;
+
+  @Setup
+  public void setUp() {
+    var user = new User();
+    user.setUserId(UUID.randomUUID());
+    user.setUsername("benchmark");
+
+    tweets = new ArrayList<>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      var tweet = new Tweet();
+      tweet.setTweetId((long) i);
+      tweet.setUser(user);
+      tweet.setContent("tweet de benchmark número " + i);
+      tweet.setCreationTimeStamp(Instant.now());
+      tweets.add(tweet);
+    }
+  }
+
+  @Benchmark
+  public List<FeedItemDto> map() {
+    return tweets.stream()
+        .map(tweet -> new FeedItemDto(tweet.getTweetId(), tweet.getContent(), tweet.getUser().getUsername(),
+            tweet.getCreationTimeStamp()))
+        .toList();
+  }
+}
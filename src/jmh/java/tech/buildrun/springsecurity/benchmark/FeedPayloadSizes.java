@@ -0,0 +1,41 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.io.IOException;
+
+import tech.buildrun.springsecurity.service.FeedEncoder;
+
+/**
+ * Imprime o tamanho do payload de cada combinação do
+ * {@link FeedSerializationBenchmark}, para ler junto com os tempos.
+ *
+ * Fica fora do JMH para não misturar a saída com a dos resultados nem
+ * repeti-la a cada fork e trial:
+ *
+ * <pre>
+ * ./mvnw -Pjmh -DskipTests test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.buildrun.springsecurity.benchmark.FeedPayloadSizes
+ * </pre>
+ *
+ * @author Emanuel
+ */
+public final class FeedPayloadSizes {
+
+  private FeedPayloadSizes() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    System.out.printf("%-6s %-5s %8s %10s%n", "format", "gzip", "pageSize", "bytes");
+    for (var format : FeedEncoder.Format.values()) {
+      for (var gzip : new boolean[] { false, true }) {
+        for (var pageSize : new int[] { 10, 50, 200 }) {
+          var benchmark = new FeedSerializationBenchmark();
+          benchmark.format = format;
+          benchmark.gzip = gzip;
+          benchmark.pageSize = pageSize;
+          benchmark.setUp();
+          System.out.printf("%-6s %-5s %8d %10d%n", format, gzip, pageSize, benchmark.serialize().length);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.buildrun.springsecurity.controller.dto.FeedDto;
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.service.FeedEncoder;
+
+/**
+ * Custo da serialização Jackson de um {@link FeedDto}, por tamanho de página,
+ * com a mesma configuração de {@link ObjectMapper} usada pelo Spring Boot.
+ *
+ * Compara os formatos do {@link FeedEncoder} (JSON, CBOR e Smile), com e sem
+ * gzip, e o caminho das páginas já codificadas. O tamanho do payload de cada
+ * combinação é impresso por {@link FeedPayloadSizes}, fora do JMH.
+ *
+ * @author Emanuel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedSerializationBenchmark {
+
+  @Param({ "10", "50", "200" })
+  public int pageSize;
+
+  @Param({ "JSON", "CBOR", "SMILE" })
+  public FeedEncoder.Format format;
+
+  @Param({ "false", "true" })
+  public boolean gzip;
+
+  private FeedEncoder encoder;
+
+  private FeedDto feed;
+
+  @Setup
+  public void setUp() throws IOException {
+    var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    encoder = new FeedEncoder(objectMapper, Jackson2ObjectMapperBuilder.json(), 1, List.of(pageSize));
+
+    var items = new ArrayList<FeedItemDto>(pageSize);
+    for (int i = 0; i < pageSize; i++) {
+      items.add(new FeedItemDto((long) i, "tweet de benchmark número " + i, "benchmark", Instant.now()));
+    }
+    feed = new FeedDto(items, 0, pageSize, 1000, 1000L * pageSize);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    var bytes = encoder.encode(format, feed);
+    return gzip ? gzip(bytes) : bytes;
+  }
+
+  @Benchmark
+  public byte[] preEncoded() throws IOException {
+    var bytes = encoder.encode(format, "etag", 0, pageSize, () -> feed);
+    return gzip ? gzip(bytes) : bytes;
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    var out = new ByteArrayOutputStream(bytes.length);
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,98 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+
+import tech.buildrun.springsecurity.config.CachingJwtDecoder;
+
+/**
+ * Custo da emissão e da verificação de JWT, como feitos no login e em toda
+ * requisição autenticada.
+ *
+ * {@code decode} é a verificação RSA completa do {@link NimbusJwtDecoder};
+ * {@code decodeCached} é o mesmo token passando pelo {@link CachingJwtDecoder}
+ * (acerto de cache). A diferença entre os dois é a CPU economizada por
+ * requisição repetida.
+ *
+ * @author Emanuel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+  private JwtEncoder encoder;
+
+  private JwtDecoder decoder;
+
+  private JwtDecoder cachingDecoder;
+
+  private JwtClaimsSet claims;
+
+  private String token;
+
+  @Setup
+  public void setUp() {
+    var publicKey = BenchmarkKeys.publicKey();
+    var jwk = new RSAKey.Builder(publicKey).privateKey(BenchmarkKeys.privateKey()).build();
+    encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(jwk)));
+    decoder = NimbusJwtDecoder.withPublicKey(publicKey).build();
+    cachingDecoder = new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey(publicKey).build(), 100_000,
+        Duration.ofMinutes(5), Clock.systemUTC());
+
+    // Mesmas claims emitidas pelo TokenController.login
+    var now = Instant.now();
+    claims = JwtClaimsSet.builder()
+        .issuer("mybackend")
+        .subject(UUID.randomUUID().toString())
+        .issuedAt(now)
+        .expiresAt(now.plusSeconds(3600))
+        .claim("scope", "BASIC")
+        .build();
+    token = encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+    cachingDecoder.decode(token);
+  }
+
+  @Benchmark
+  public String encode() {
+    return encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+  }
+
+  @Benchmark
+  public Jwt decode() {
+    return decoder.decode(token);
+  }
+
+  @Benchmark
+  public Jwt decodeCached() {
+    return cachingDecoder.decode(token);
+  }
+}
@@ -0,0 +1,77 @@
+package tech.buildrun.springsecurity.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tech.buildrun.springsecurity.service.InvertedIndex;
+
+/**
+ * Latência das consultas do {@link InvertedIndex} sobre um milhão de tweets
+ * sintéticos, em modo amostral, para os percentis (p99) da busca.
+ *
+ * O vocabulário segue uma distribuição de Zipf: {@code w0} aparece em quase
+ * todos os tweets, {@code w50} é frequente e {@code w5000} é raro. Mede apenas
+ * o índice; a renderização da página no banco fica de fora.
+ *
+ * @author Emanuel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SearchBenchmark {
+
+  private static final int TWEETS = 1_000_000;
+
+  private static final int VOCABULARY = 50_000;
+
+  private static final int WORDS_PER_TWEET = 12;
+
+  @Param({ "w0", "w50", "w5000", "w0 w50", "w50 w5000" })
+  public String query;
+
+  private InvertedIndex index;
+
+  @Setup
+  public void setUp() {
+    // Distribuição acumulada de Zipf (s = 1) sobre o vocabulário
+    var cumulative = new double[VOCABULARY];
+    var sum = 0.0;
+    for (int i = 0; i < VOCABULARY; i++) {
+      sum += 1.0 / (i + 1);
+      cumulative[i] = sum;
+    }
+
+    var random = new SplittableRandom(42);
+    index = new InvertedIndex();
+    var text = new StringBuilder();
+    for (long id = 1; id <= TWEETS; id++) {
+      text.setLength(0);
+      for (int w = 0; w < WORDS_PER_TWEET; w++) {
+        var at = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        text.append('w').append(at >= 0 ? at : -at - 1).append(' ');
+      }
+      index.add(id, text.toString());
+    }
+  }
+
+  @Benchmark
+  public InvertedIndex.Result search() {
+    return index.search(query, 0, 10);
+  }
+}
@@ -2,14 +2,14 @@ package tech.buildrun.springsecurity.config;
 
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import jakarta.transaction.Transactional;
 import java.util.Set;
 import tech.buildrun.springsecurity.entities.Role;
 import tech.buildrun.springsecurity.entities.User;
-import tech.buildrun.springsecurity.repository.RoleRepository;
 import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.PasswordHashingExecutor;
+import tech.buildrun.springsecurity.service.RoleRegistry;
 
 /**
  * Classe de configuração responsável pela criação de um usuário administrador
@@ -41,9 +41,9 @@ import tech.buildrun.springsecurity.repository.UserRepository;
 public class AdminUserConfig implements CommandLineRunner {
 
   /**
-   * Repositório para operações de persistência com a entidade {@link Role}.
+   * Registro das roles, de onde vem a referência à role {@link Role} ADMIN.
    */
-  private RoleRepository roleRepository;
+  private RoleRegistry roleRegistry;
 
   /**
    * Repositório para operações de persistência com a entidade {@link User}.
@@ -51,23 +51,23 @@ public class AdminUserConfig implements CommandLineRunner {
   private UserRepository userRepository;
 
   /**
-   * Encoder para hash seguro de senhas utilizando o algoritmo BCrypt.
+   * Pool dedicado para o hash seguro de senhas utilizando o algoritmo BCrypt.
    */
-  private BCryptPasswordEncoder bCryptPasswordEncoder;
+  private PasswordHashingExecutor passwordHashingExecutor;
 
   /**
    * Construtor para injeção de dependências necessárias.
    *
-   * @param bCryptPasswordEncoder o encoder de senha baseado em BCrypt.
-   * @param roleRepository        o repositório para gerenciamento de perfis de
-   *                              usuário.
-   * @param userRepository        o repositório para gerenciamento de usuários.
+   * @param passwordHashingExecutor o pool dedicado para o hash BCrypt.
+   * @param roleRegistry            o registro dos perfis de usuário.
+   * @param userRepository          o repositório para gerenciamento de
+   *                                usuários.
    */
-  public AdminUserConfig(BCryptPasswordEncoder bCryptPasswordEncoder, RoleRepository roleRepository,
+  public AdminUserConfig(PasswordHashingExecutor passwordHashingExecutor, RoleRegistry roleRegistry,
       UserRepository userRepository) {
-    this.roleRepository = roleRepository;
+    this.roleRegistry = roleRegistry;
     this.userRepository = userRepository;
-    this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+    this.passwordHashingExecutor = passwordHashingExecutor;
   }
 
   /**
@@ -90,8 +90,6 @@ public class AdminUserConfig implements CommandLineRunner {
   @Override
   @Transactional
   public void run(String... args) throws Exception {
-    var roleAdmin = roleRepository.findByName(Role.Values.ADMIN.name());
-
     var userAdmin = userRepository.findByUsername("admin");
 
     userAdmin.ifPresentOrElse(
@@ -103,8 +101,8 @@ public class AdminUserConfig implements CommandLineRunner {
           // Caso o usuário admin não exista, cria um novo.
           var user = new User();
           user.setUsername("admin");
-          user.setPassword(bCryptPasswordEncoder.encode("123"));
-          user.setRoles(Set.of(roleAdmin));
+          user.setPassword(passwordHashingExecutor.encode("123").join());
+          user.setRoles(Set.of(roleRegistry.reference(Role.Values.ADMIN)));
           userRepository.save(user);
         });
   }
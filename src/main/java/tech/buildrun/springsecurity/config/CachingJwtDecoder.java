@@ -0,0 +1,247 @@
+package tech.buildrun.springsecurity.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * {@link JwtDecoder} que mantém um cache limitado de tokens já verificados.
+ *
+ * Um mesmo cliente reenvia o mesmo token centenas de vezes durante sua
+ * validade; apenas a primeira requisição paga a verificação da assinatura RSA
+ * e o parse das claims no decodificador delegado. As seguintes recebem o
+ * {@link Jwt} já verificado.
+ *
+ * A chave do cache é o hash SHA-256 do token, de modo que o valor do token não
+ * fica retido em memória. Cada entrada expira no {@code exp} do próprio token
+ * (limitado a {@code maxTtl}); tokens sem {@code exp} não são armazenados.
+ * Falhas de verificação nunca são armazenadas.
+ *
+ * Os contadores de acertos, falhas e remoções são publicados no Micrometer sob
+ * o prefixo {@code jwt.decoder.cache}.
+ *
+ * @author Emanuel
+ */
+public class CachingJwtDecoder implements JwtDecoder, MeterBinder {
+
+  /**
+   * Token verificado e o instante até o qual pode ser reutilizado.
+   *
+   * @param jwt       token decodificado e verificado.
+   * @param expiresAt instante a partir do qual a entrada é descartada.
+   */
+  private record Entry(Jwt jwt, Instant expiresAt) {
+  }
+
+  /**
+   * Decodificador delegado, responsável pela verificação completa.
+   */
+  private final JwtDecoder delegate;
+
+  /**
+   * Quantidade máxima de tokens em cache.
+   */
+  private final int maxEntries;
+
+  /**
+   * Tempo máximo de permanência de uma entrada, independente do {@code exp}.
+   */
+  private final Duration maxTtl;
+
+  /**
+   * Relógio usado para decidir a expiração das entradas.
+   */
+  private final Clock clock;
+
+  /**
+   * Tokens verificados, indexados pelo hash do token.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Indica uma limpeza em andamento; as demais requisições não repetem a
+   * varredura.
+   */
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * Quantidade de decodificações atendidas pelo cache.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * Quantidade de decodificações delegadas ao decodificador completo.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Quantidade de entradas removidas por expiração ou falta de espaço.
+   */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Cria o decodificador com cache.
+   *
+   * @param delegate   decodificador que realiza a verificação completa.
+   * @param maxEntries quantidade máxima de tokens em cache.
+   * @param maxTtl     tempo máximo de permanência de uma entrada.
+   * @param clock      relógio usado para a expiração das entradas.
+   */
+  public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl, Clock clock) {
+    this.delegate = delegate;
+    this.maxEntries = maxEntries;
+    this.maxTtl = maxTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Decodifica o token, reutilizando a verificação anterior quando o mesmo token
+   * já foi aceito e ainda não expirou.
+   *
+   * @param token token JWT serializado.
+   * @return o {@link Jwt} verificado.
+   * @throws JwtException caso o token seja inválido.
+   */
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    var key = hash(token);
+    var now = clock.instant();
+
+    var cached = entries.get(key);
+    if (cached != null) {
+      if (now.isBefore(cached.expiresAt())) {
+        hits.increment();
+        return cached.jwt();
+      }
+      if (entries.remove(key, cached)) {
+        evictions.increment();
+      }
+    }
+
+    misses.increment();
+    var jwt = delegate.decode(token);
+
+    if (jwt.getExpiresAt() != null) {
+      var cap = now.plus(maxTtl);
+      var expiresAt = jwt.getExpiresAt().isBefore(cap) ? jwt.getExpiresAt() : cap;
+      // Cache cheio com outra thread limpando: o token apenas não é guardado
+      if (entries.size() < maxEntries || evict(now)) {
+        entries.put(key, new Entry(jwt, expiresAt));
+      }
+    }
+
+    return jwt;
+  }
+
+  /**
+   * Abre espaço no cache: remove as entradas expiradas e, se ainda estiver
+   * cheio, descarta entradas arbitrárias até um quarto da capacidade. A
+   * varredura é O(n); apenas uma thread a executa por vez.
+   *
+   * @param now instante atual.
+   * @return false se outra thread já estava limpando o cache.
+   */
+  private boolean evict(Instant now) {
+    if (!evicting.compareAndSet(false, true)) {
+      return false;
+    }
+    try {
+      entries.forEach((key, entry) -> {
+        if (!now.isBefore(entry.expiresAt()) && entries.remove(key, entry)) {
+          evictions.increment();
+        }
+      });
+
+      var target = maxEntries - Math.max(1, maxEntries / 4);
+      var it = entries.keySet().iterator();
+      while (entries.size() > target && it.hasNext()) {
+        it.next();
+        it.remove();
+        evictions.increment();
+      }
+      return true;
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * Calcula o hash SHA-256 do token, codificado em Base64.
+   *
+   * @param token token JWT serializado.
+   * @return hash do token.
+   */
+  private static String hash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Retorna a quantidade de decodificações atendidas pelo cache.
+   *
+   * @return acertos do cache.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Retorna a quantidade de decodificações delegadas.
+   *
+   * @return falhas do cache.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Retorna a quantidade de entradas removidas.
+   *
+   * @return remoções do cache.
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Publica os contadores e o tamanho do cache no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("jwt.decoder.cache.hits", this, CachingJwtDecoder::getHits)
+        .description("JWT decodes served from the verified-token cache")
+        .register(registry);
+    FunctionCounter.builder("jwt.decoder.cache.misses", this, CachingJwtDecoder::getMisses)
+        .description("JWT decodes that ran full signature verification")
+        .register(registry);
+    FunctionCounter.builder("jwt.decoder.cache.evictions", this, CachingJwtDecoder::getEvictions)
+        .description("Verified tokens dropped from the cache")
+        .register(registry);
+    Gauge.builder("jwt.decoder.cache.size", entries, Map::size)
+        .description("Verified tokens currently cached")
+        .register(registry);
+  }
+}
@@ -0,0 +1,33 @@
+package tech.buildrun.springsecurity.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuração da observabilidade da camada de persistência.
+ *
+ * As latências por endpoint ({@code http.server.requests}), por método de
+ * repositório ({@code spring.data.repository.invocations}) e as estatísticas
+ * de sessão do Hibernate ({@code hibernate.*}) são publicadas pelo Actuator; as
+ * distribuições são ajustadas no {@code application.properties}. Aqui fica
+ * apenas o log de SQL amostrado.
+ *
+ * @author Emanuel
+ */
+@Configuration
+public class ObservabilityConfig {
+
+  /**
+   * Registra o {@link SampledSqlInspector} na fábrica de sessões do Hibernate.
+   *
+   * @param sampleRate fração dos comandos SQL registrados em log.
+   * @return customizador das propriedades do Hibernate.
+   */
+  @Bean
+  public HibernatePropertiesCustomizer sampledSqlLogging(@Value("${logging.sql.sample-rate:0}") double sampleRate) {
+    return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledSqlInspector(sampleRate));
+  }
+}
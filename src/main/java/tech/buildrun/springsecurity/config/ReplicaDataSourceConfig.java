@@ -0,0 +1,116 @@
+package tech.buildrun.springsecurity.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import tech.buildrun.springsecurity.service.RecentWriteTracker;
+
+/**
+ * Separação de leitura e escrita entre o primário e réplicas de leitura.
+ *
+ * Ativa apenas quando {@code datasource.replicas.urls} está definido (lista
+ * separada por vírgulas). Sem essa propriedade a aplicação usa o
+ * {@link DataSource} padrão do Spring Boot.
+ *
+ * O {@link DataSource} da aplicação passa a ser um
+ * {@link LazyConnectionDataSourceProxy}: a conexão física só é obtida no
+ * primeiro comando, quando o Hibernate já marcou a conexão como somente
+ * leitura. Transações {@code @Transactional(readOnly = true)} vão então para o
+ * {@link ReplicaPool}; as demais, para o primário.
+ *
+ * @author Emanuel
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+  /**
+   * Pool do primário, com as mesmas propriedades {@code spring.datasource.*}
+   * da configuração padrão.
+   *
+   * @param properties  propriedades {@code spring.datasource.*}.
+   * @param environment ambiente, para as propriedades
+   *                    {@code spring.datasource.hikari.*}.
+   * @return pool de conexões do primário.
+   */
+  @Bean
+  public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+    var primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+    if (primary.getPoolName() == null) {
+      primary.setPoolName("primary");
+    }
+    return primary;
+  }
+
+  /**
+   * Pool das réplicas de leitura.
+   *
+   * @param properties         propriedades {@code spring.datasource.*}, usadas
+   *                           como padrão de usuário, senha e driver.
+   * @param primaryDataSource  pool do primário, usado como fallback.
+   * @param recentWriteTracker registro dos usuários que escreveram
+   *                           recentemente.
+   * @param urls               URLs JDBC das réplicas.
+   * @param username           usuário das réplicas; vazio usa o do primário.
+   * @param password           senha das réplicas; vazia usa a do primário.
+   * @param lagQuery           consulta do atraso de replicação em segundos.
+   * @param maxLag             atraso máximo tolerado em uma réplica.
+   * @return pool das réplicas.
+   */
+  @Bean
+  public ReplicaPool replicaPool(DataSourceProperties properties, HikariDataSource primaryDataSource,
+      RecentWriteTracker recentWriteTracker,
+      @Value("${datasource.replicas.urls}") List<String> urls,
+      @Value("${datasource.replicas.username:}") String username,
+      @Value("${datasource.replicas.password:}") String password,
+      @Value("${datasource.replicas.lag-query:}") String lagQuery,
+      @Value("${datasource.replicas.max-lag:5s}") Duration maxLag) {
+    var replicas = new ArrayList<HikariDataSource>();
+    for (var url : urls) {
+      var replica = new HikariDataSource();
+      replica.setPoolName("replica-" + replicas.size());
+      replica.setJdbcUrl(url.trim());
+      replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+      replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+      replica.setDriverClassName(properties.determineDriverClassName());
+      replica.setReadOnly(true);
+      // Não bloqueia a inicialização se a réplica estiver fora do ar
+      replica.setInitializationFailTimeout(-1);
+      replicas.add(replica);
+    }
+    return new ReplicaPool(primaryDataSource, replicas, recentWriteTracker, lagQuery, maxLag);
+  }
+
+  /**
+   * {@link DataSource} da aplicação: primário para escritas, réplicas para
+   * transações somente leitura.
+   *
+   * @param primaryDataSource pool do primário.
+   * @param replicaPool       pool das réplicas de leitura.
+   * @return proxy que decide o destino na obtenção da conexão física.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+    var proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+    proxy.setReadOnlyDataSource(replicaPool);
+    return proxy;
+  }
+}
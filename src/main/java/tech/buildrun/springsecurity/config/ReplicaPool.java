@@ -0,0 +1,264 @@
+package tech.buildrun.springsecurity.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import tech.buildrun.springsecurity.service.RecentWriteTracker;
+
+/**
+ * {@link DataSource} das transações somente leitura, distribuídas entre as
+ * réplicas.
+ *
+ * Cada conexão vai para a próxima réplica saudável (round-robin). Uma réplica
+ * é considerada saudável quando a última verificação, feita a cada
+ * {@code datasource.replicas.health-check-interval}, conseguiu conectar e, se
+ * houver {@code datasource.replicas.lag-query}, mediu um atraso de replicação
+ * de até {@code datasource.replicas.max-lag}. Até a primeira verificação,
+ * logo após a inicialização, as leituras vão para o primário.
+ *
+ * A leitura cai para o primário quando nenhuma réplica está saudável, ou
+ * quando o usuário autenticado escreveu há pouco (ver
+ * {@link RecentWriteTracker}).
+ *
+ * @author Emanuel
+ */
+public class ReplicaPool extends AbstractDataSource implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+
+  /**
+   * Réplica e o resultado de sua última verificação.
+   */
+  static final class Replica {
+
+    /**
+     * Pool de conexões da réplica.
+     */
+    private final HikariDataSource dataSource;
+
+    /**
+     * Resultado da última verificação.
+     */
+    private volatile boolean healthy;
+
+    /**
+     * Atraso de replicação medido na última verificação, em milissegundos.
+     */
+    private volatile long lagMillis;
+
+    Replica(HikariDataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+  }
+
+  /**
+   * Primário, usado como fallback.
+   */
+  private final DataSource primary;
+
+  /**
+   * Réplicas configuradas.
+   */
+  private final List<Replica> replicas;
+
+  /**
+   * Registro dos usuários que escreveram recentemente.
+   */
+  private final RecentWriteTracker recentWriteTracker;
+
+  /**
+   * Consulta que retorna o atraso de replicação em segundos; vazia desliga a
+   * medição.
+   */
+  private final String lagQuery;
+
+  /**
+   * Atraso máximo tolerado em uma réplica.
+   */
+  private final Duration maxLag;
+
+  /**
+   * Posição do round-robin.
+   */
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Leituras servidas por uma réplica.
+   */
+  private final LongAdder replicaReads = new LongAdder();
+
+  /**
+   * Leituras enviadas ao primário por falta de réplica saudável.
+   */
+  private final LongAdder fallbackReads = new LongAdder();
+
+  /**
+   * Leituras enviadas ao primário pela janela read-your-writes.
+   */
+  private final LongAdder stickyReads = new LongAdder();
+
+  /**
+   * Cria o pool de réplicas.
+   *
+   * @param primary            primário, usado como fallback.
+   * @param replicas           pools de conexão das réplicas.
+   * @param recentWriteTracker registro dos usuários que escreveram
+   *                           recentemente.
+   * @param lagQuery           consulta do atraso de replicação em segundos, ou
+   *                           vazia.
+   * @param maxLag             atraso máximo tolerado.
+   */
+  public ReplicaPool(DataSource primary, List<HikariDataSource> replicas, RecentWriteTracker recentWriteTracker,
+      String lagQuery, Duration maxLag) {
+    this.primary = primary;
+    this.replicas = replicas.stream().map(Replica::new).toList();
+    this.recentWriteTracker = recentWriteTracker;
+    this.lagQuery = lagQuery;
+    this.maxLag = maxLag;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return target().getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return target().getConnection(username, password);
+  }
+
+  /**
+   * Escolhe o destino da leitura.
+   *
+   * @return réplica saudável ou o primário.
+   */
+  private DataSource target() {
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && recentWriteTracker.isRecentWriter(authentication.getName())) {
+      stickyReads.increment();
+      return primary;
+    }
+
+    var start = Math.floorMod(next.getAndIncrement(), replicas.size());
+    for (int i = 0; i < replicas.size(); i++) {
+      var replica = replicas.get((start + i) % replicas.size());
+      if (replica.healthy) {
+        replicaReads.increment();
+        return replica.dataSource;
+      }
+    }
+
+    fallbackReads.increment();
+    return primary;
+  }
+
+  /**
+   * Verifica a conexão e o atraso de cada réplica.
+   */
+  @Scheduled(fixedDelayString = "${datasource.replicas.health-check-interval:2s}")
+  void checkReplicas() {
+    for (var replica : replicas) {
+      var wasHealthy = replica.healthy;
+      try (var connection = replica.dataSource.getConnection()) {
+        replica.lagMillis = lagMillis(connection);
+        replica.healthy = replica.lagMillis <= maxLag.toMillis();
+      } catch (SQLException | RuntimeException e) {
+        replica.healthy = false;
+        log.debug("replica {} check failed", replica.dataSource.getPoolName(), e);
+      }
+      if (wasHealthy != replica.healthy) {
+        log.warn("replica {} is now {} (lag {} ms)", replica.dataSource.getPoolName(),
+            replica.healthy ? "healthy" : "unhealthy", replica.lagMillis);
+      }
+    }
+  }
+
+  /**
+   * Mede o atraso de replicação com a consulta configurada.
+   *
+   * @param connection conexão com a réplica.
+   * @return atraso em milissegundos; zero sem consulta configurada ou quando a
+   *         consulta não retorna linhas.
+   * @throws SQLException caso a consulta falhe.
+   */
+  private long lagMillis(Connection connection) throws SQLException {
+    if (lagQuery.isBlank()) {
+      return connection.isValid(2) ? 0 : Long.MAX_VALUE;
+    }
+    try (var statement = connection.createStatement(); var result = statement.executeQuery(lagQuery)) {
+      if (!result.next()) {
+        return 0;
+      }
+      var seconds = result.getDouble(1);
+      // Lag nulo (replicação parada) torna a réplica inelegível
+      return result.wasNull() ? Long.MAX_VALUE : (long) (seconds * 1000);
+    }
+  }
+
+  /**
+   * Retorna a quantidade de réplicas saudáveis.
+   *
+   * @return réplicas elegíveis para leitura.
+   */
+  public long getHealthyReplicas() {
+    return replicas.stream().filter(replica -> replica.healthy).count();
+  }
+
+  /**
+   * Publica o roteamento e a saúde das réplicas no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("datasource.reads", replicaReads, LongAdder::sum)
+        .tag("target", "replica")
+        .description("Read-only transactions served by a replica")
+        .register(registry);
+    FunctionCounter.builder("datasource.reads", fallbackReads, LongAdder::sum)
+        .tag("target", "primary-fallback")
+        .description("Read-only transactions sent to the primary because no replica was healthy")
+        .register(registry);
+    FunctionCounter.builder("datasource.reads", stickyReads, LongAdder::sum)
+        .tag("target", "primary-sticky")
+        .description("Read-only transactions sent to the primary for read-your-writes")
+        .register(registry);
+    Gauge.builder("datasource.replicas.healthy", this, ReplicaPool::getHealthyReplicas)
+        .description("Replicas currently eligible for reads")
+        .register(registry);
+    for (var replica : replicas) {
+      Gauge.builder("datasource.replicas.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? -1 : r.lagMillis)
+          .tag("replica", replica.dataSource.getPoolName())
+          .baseUnit("milliseconds")
+          .description("Replication lag measured by the last health check (-1 = unknown)")
+          .register(registry);
+    }
+  }
+
+  /**
+   * Encerra os pools das réplicas.
+   */
+  @PreDestroy
+  void close() {
+    replicas.forEach(replica -> replica.dataSource.close());
+  }
+}
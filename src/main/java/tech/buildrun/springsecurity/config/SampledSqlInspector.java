@@ -0,0 +1,54 @@
+package tech.buildrun.springsecurity.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link StatementInspector} que registra em log uma amostra dos comandos SQL
+ * executados pelo Hibernate.
+ *
+ * Substitui o {@code spring.jpa.show-sql}, que imprime todos os comandos no
+ * stdout de forma síncrona e derruba a vazão sob carga. Aqui apenas uma fração
+ * ({@code logging.sql.sample-rate}, entre 0 e 1) é registrada, no logger
+ * {@code tech.buildrun.springsecurity.SQL}, que pode ser silenciado ou
+ * redirecionado como qualquer outro.
+ *
+ * O comando nunca é alterado.
+ *
+ * @author Emanuel
+ */
+public class SampledSqlInspector implements StatementInspector {
+
+  private static final Logger log = LoggerFactory.getLogger("tech.buildrun.springsecurity.SQL");
+
+  /**
+   * Fração dos comandos registrados (0 desliga, 1 registra todos).
+   */
+  private final double sampleRate;
+
+  /**
+   * Cria o inspetor com a taxa de amostragem informada.
+   *
+   * @param sampleRate fração dos comandos registrados, entre 0 e 1.
+   */
+  public SampledSqlInspector(double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  /**
+   * Registra o comando caso ele seja sorteado na amostra.
+   *
+   * @param sql comando SQL gerado pelo Hibernate.
+   * @return o mesmo comando, sem alterações.
+   */
+  @Override
+  public String inspect(String sql) {
+    if (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+      log.info(sql);
+    }
+    return sql;
+  }
+}
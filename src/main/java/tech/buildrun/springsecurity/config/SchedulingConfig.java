@@ -0,0 +1,20 @@
+package tech.buildrun.springsecurity.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita os métodos {@code @Scheduled} das tarefas de manutenção em segundo
+ * plano (reconciliações, recargas, limpezas, heartbeats).
+ *
+ * Todas rodam no {@code taskScheduler} compartilhado configurado pelo Spring
+ * Boot ({@code spring.task.scheduling.*}, threads virtuais no modo
+ * {@code spring.threads.virtual.enabled}), começam apenas depois do refresh do
+ * contexto e são listadas no endpoint {@code /actuator/scheduledtasks}.
+ *
+ * @author Emanuel
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,6 +2,8 @@ package tech.buildrun.springsecurity.config;
 
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -74,7 +76,8 @@ public class SecurityConfig {
    * 
    * As configurações incluem:
    * <ul>
-   * <li>Permissão irrestrita aos endpoints de login e criação de usuários</li>
+   * <li>Permissão irrestrita aos endpoints de login, renovação de token e
+   * criação de usuários</li>
    * <li>Exigência de autenticação para qualquer outro endpoint</li>
    * <li>Desabilitação de CSRF (adequado para APIs REST)</li>
    * <li>Configuração do recurso OAuth2 com JWT</li>
@@ -90,6 +93,7 @@ public class SecurityConfig {
     http
         .authorizeHttpRequests(authorize -> authorize
             .requestMatchers(HttpMethod.POST, "/login").permitAll()
+            .requestMatchers(HttpMethod.POST, "/token/refresh").permitAll()
             .requestMatchers(HttpMethod.POST, "/users").permitAll()
             .anyRequest().authenticated())
         .csrf(csrf -> csrf.disable())
@@ -138,13 +142,19 @@ public class SecurityConfig {
   /**
    * Configura o decodificador de tokens JWT, utilizando a chave pública RSA.
    * 
-   * Este decodificador verifica a assinatura dos tokens recebidos.
+   * Este decodificador verifica a assinatura dos tokens recebidos. Os tokens já
+   * verificados ficam em um cache limitado ({@link CachingJwtDecoder}), de modo
+   * que requisições repetidas com o mesmo token não refazem a verificação RSA.
    * 
+   * @param maxEntries quantidade máxima de tokens verificados em cache.
+   * @param maxTtl     tempo máximo de permanência de um token no cache.
    * @return uma instância de {@link JwtDecoder}.
    */
   @Bean
-  public JwtDecoder jwtDecoder() {
-    return NimbusJwtDecoder.withPublicKey(publicKey).build();
+  public CachingJwtDecoder jwtDecoder(@Value("${jwt.decoder.cache.max-entries:100000}") int maxEntries,
+      @Value("${jwt.decoder.cache.max-ttl:300s}") Duration maxTtl) {
+    return new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey(publicKey).build(), maxEntries, maxTtl,
+        Clock.systemUTC());
   }
 
   /**
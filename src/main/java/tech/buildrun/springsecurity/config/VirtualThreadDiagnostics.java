@@ -0,0 +1,224 @@
+package tech.buildrun.springsecurity.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Diagnóstico do modo de execução em threads virtuais.
+ *
+ * Com {@code spring.threads.virtual.enabled=true}, o Tomcat e os executores do
+ * Spring passam a usar threads virtuais. Uma thread virtual que bloqueia dentro
+ * de um bloco {@code synchronized} ou de código nativo fica presa ("pinned") à
+ * thread carregadora, e o ganho de concorrência se perde. Este componente
+ * assina o evento JFR {@code jdk.VirtualThreadPinned} acima de
+ * {@code diagnostics.virtual-threads.pinned-threshold} e guarda a contagem, a
+ * maior duração e os eventos mais recentes com o frame que causou o pinning.
+ *
+ * Os dados são expostos no endpoint {@code /actuator/virtualthreads} e no
+ * contador {@code jvm.threads.virtual.pinned}. No modo de threads de
+ * plataforma o endpoint apenas informa que o modo está desligado.
+ *
+ * @author Emanuel
+ */
+@Component
+@Endpoint(id = "virtualthreads")
+public class VirtualThreadDiagnostics implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+  /**
+   * Nome do evento JFR emitido quando uma thread virtual fica presa.
+   */
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  /**
+   * Quantidade de eventos recentes mantidos para inspeção.
+   */
+  private static final int RECENT_EVENTS = 20;
+
+  /**
+   * Evento de pinning resumido.
+   *
+   * @param at             instante do evento.
+   * @param durationMillis tempo em que a thread ficou presa.
+   * @param thread         nome (ou ID) da thread virtual.
+   * @param frame          primeiro frame fora do mecanismo de park da JVM e de
+   *                       {@code java.util.concurrent}.
+   */
+  public record PinnedEvent(Instant at, double durationMillis, String thread, String frame) {
+  }
+
+  /**
+   * Indica se o modo de threads virtuais está habilitado.
+   */
+  private final boolean enabled;
+
+  /**
+   * Duração mínima de um pinning para ser registrado.
+   */
+  private final Duration pinnedThreshold;
+
+  /**
+   * Quantidade de eventos de pinning registrados.
+   */
+  private final LongAdder pinnedCount = new LongAdder();
+
+  /**
+   * Maior duração de pinning observada, em nanossegundos.
+   */
+  private final AtomicLong maxPinnedNanos = new AtomicLong();
+
+  /**
+   * Eventos mais recentes, do mais novo ao mais antigo.
+   */
+  private final Deque<PinnedEvent> recent = new ArrayDeque<>();
+
+  /**
+   * Stream JFR ativo, apenas no modo de threads virtuais.
+   */
+  private RecordingStream stream;
+
+  /**
+   * Construtor com as propriedades do diagnóstico.
+   *
+   * @param enabled         se o modo de threads virtuais está habilitado.
+   * @param pinnedThreshold duração mínima de um pinning para ser registrado.
+   */
+  public VirtualThreadDiagnostics(@Value("${spring.threads.virtual.enabled:false}") boolean enabled,
+      @Value("${diagnostics.virtual-threads.pinned-threshold:20ms}") Duration pinnedThreshold) {
+    this.enabled = enabled;
+    this.pinnedThreshold = pinnedThreshold;
+  }
+
+  /**
+   * Inicia a assinatura do evento de pinning quando o modo está habilitado.
+   */
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      stream = new RecordingStream();
+      stream.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+      stream.onEvent(PINNED_EVENT, this::onPinned);
+      stream.startAsync();
+    } catch (RuntimeException e) {
+      log.warn("virtual thread pinning detection unavailable", e);
+      stream = null;
+    }
+  }
+
+  /**
+   * Registra um evento de pinning.
+   *
+   * @param event evento JFR recebido.
+   */
+  private void onPinned(RecordedEvent event) {
+    var duration = event.getDuration();
+    pinnedCount.increment();
+    maxPinnedNanos.accumulateAndGet(duration.toNanos(), Math::max);
+
+    // Ignora os frames do próprio mecanismo de park (inclusive o acesso interno
+    // de System, LockSupport e as demais classes de java.util.concurrent) para
+    // apontar o código que segurava o monitor
+    var frame = "unknown";
+    if (event.getStackTrace() != null) {
+      for (var candidate : event.getStackTrace().getFrames()) {
+        var type = candidate.getMethod().getType().getName();
+        if (!type.startsWith("java.lang.VirtualThread") && !type.startsWith("java.lang.Thread")
+            && !type.startsWith("java.lang.System$") && !type.startsWith("jdk.internal.")
+            && !type.startsWith("java.util.concurrent.")) {
+          frame = type + "." + candidate.getMethod().getName() + ":" + candidate.getLineNumber();
+          break;
+        }
+      }
+    }
+    var thread = "unknown";
+    if (event.getThread() != null) {
+      var name = event.getThread().getJavaName();
+      thread = name == null || name.isEmpty() ? "#" + event.getThread().getJavaThreadId() : name;
+    }
+
+    synchronized (recent) {
+      recent.addFirst(new PinnedEvent(event.getStartTime(), duration.toNanos() / 1_000_000.0, thread, frame));
+      if (recent.size() > RECENT_EVENTS) {
+        recent.removeLast();
+      }
+    }
+  }
+
+  /**
+   * Retorna o estado do modo de threads virtuais e os pinnings observados.
+   *
+   * @return resumo do diagnóstico.
+   */
+  @ReadOperation
+  public Map<String, Object> diagnostics() {
+    List<PinnedEvent> events;
+    synchronized (recent) {
+      events = List.copyOf(recent);
+    }
+    var result = new LinkedHashMap<String, Object>();
+    result.put("virtualThreadsEnabled", enabled);
+    result.put("pinningDetectionActive", stream != null);
+    result.put("pinnedThresholdMillis", pinnedThreshold.toMillis());
+    result.put("pinnedEvents", pinnedCount.sum());
+    result.put("maxPinnedMillis", maxPinnedNanos.get() / 1_000_000.0);
+    result.put("recentPinnedEvents", events);
+    return result;
+  }
+
+  /**
+   * Retorna a quantidade de eventos de pinning registrados.
+   *
+   * @return eventos de pinning.
+   */
+  public long getPinnedCount() {
+    return pinnedCount.sum();
+  }
+
+  /**
+   * Publica a contagem de pinnings no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("jvm.threads.virtual.pinned", this, VirtualThreadDiagnostics::getPinnedCount)
+        .description("Virtual thread pinning events longer than the configured threshold")
+        .register(registry);
+  }
+
+  /**
+   * Encerra o stream JFR.
+   */
+  @PreDestroy
+  void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+}
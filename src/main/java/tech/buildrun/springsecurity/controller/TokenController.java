@@ -1,8 +1,11 @@
 package tech.buildrun.springsecurity.controller;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -12,21 +15,31 @@ import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import tech.buildrun.springsecurity.controller.dto.LoginRequest;
 import tech.buildrun.springsecurity.controller.dto.LoginResponse;
+import tech.buildrun.springsecurity.controller.dto.RefreshTokenRequest;
+import tech.buildrun.springsecurity.entities.User;
 import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.PasswordHashingExecutor;
+import tech.buildrun.springsecurity.service.RefreshTokenStore;
+import tech.buildrun.springsecurity.service.UsernameFilter;
 
 /**
  * Controlador REST responsável pelo endpoint de autenticação via login,
- * fornecendo um token JWT para usuários autenticados com sucesso.
+ * fornecendo um token JWT para usuários autenticados com sucesso, e pela
+ * renovação desse token via refresh token.
  * 
  * Utiliza o repositório {@link UserRepository} para buscar usuários e
  * {@link JwtEncoder} para geração dos tokens JWT.
  * 
  * A autenticação verifica se o usuário existe e se a senha fornecida está
  * correta,
- * comparando o hash com {@link BCryptPasswordEncoder}.
+ * comparando o hash com {@link BCryptPasswordEncoder}. A comparação roda no
+ * pool dedicado {@link PasswordHashingExecutor}, fora das threads do Tomcat.
+ * Usernames que o {@link UsernameFilter} garante não existirem são recusados
+ * sem consultar o banco.
  * 
  * @author Emanuel
  */
@@ -48,18 +61,40 @@ public class TokenController {
    */
   private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+  /**
+   * Pool dedicado para a verificação BCrypt.
+   */
+  private final PasswordHashingExecutor passwordHashingExecutor;
+
+  /**
+   * Armazenamento dos refresh tokens emitidos.
+   */
+  private final RefreshTokenStore refreshTokenStore;
+
+  /**
+   * Filtro de Bloom dos usernames cadastrados.
+   */
+  private final UsernameFilter usernameFilter;
+
   /**
    * Construtor para injeção das dependências.
    * 
-   * @param jwtEncoder            componente para geração de tokens JWT.
-   * @param userRepository        repositório para acesso a usuários.
-   * @param bCryptPasswordEncoder encoder para validação de senhas.
+   * @param jwtEncoder              componente para geração de tokens JWT.
+   * @param userRepository          repositório para acesso a usuários.
+   * @param bCryptPasswordEncoder   encoder para validação de senhas.
+   * @param passwordHashingExecutor pool dedicado para a verificação BCrypt.
+   * @param refreshTokenStore       armazenamento dos refresh tokens.
+   * @param usernameFilter          filtro de Bloom dos usernames.
    */
   public TokenController(JwtEncoder jwtEncoder, UserRepository userRepository,
-      BCryptPasswordEncoder bCryptPasswordEncoder) {
+      BCryptPasswordEncoder bCryptPasswordEncoder, PasswordHashingExecutor passwordHashingExecutor,
+      RefreshTokenStore refreshTokenStore, UsernameFilter usernameFilter) {
     this.jwtEncoder = jwtEncoder;
     this.userRepository = userRepository;
     this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+    this.passwordHashingExecutor = passwordHashingExecutor;
+    this.refreshTokenStore = refreshTokenStore;
+    this.usernameFilter = usernameFilter;
   }
 
   /**
@@ -71,35 +106,116 @@ public class TokenController {
    * 
    * Se as credenciais forem inválidas, lança {@link BadCredentialsException}.
    * 
+   * A verificação da senha é feita de forma assíncrona no pool BCrypt; a thread
+   * do Tomcat é liberada enquanto isso.
+   * 
    * @param loginRequest objeto contendo as credenciais de login.
-   * @return um {@link ResponseEntity} contendo {@link LoginResponse} com o token
-   *         JWT e expiração.
+   * @return futuro de um {@link ResponseEntity} contendo {@link LoginResponse}
+   *         com o token JWT e expiração.
    * @throws BadCredentialsException caso username ou senha sejam inválidos.
+   * @throws ResponseStatusException com status 503 (Service Unavailable) caso o
+   *                                 pool BCrypt esteja saturado.
    */
   @PostMapping("/login")
-  public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest loginRequest) {
+  public CompletableFuture<ResponseEntity<LoginResponse>> login(@RequestBody LoginRequest loginRequest) {
+    // Usernames certamente inexistentes não chegam ao banco
+    if (!usernameFilter.mightExist(loginRequest.username())) {
+      throw new BadCredentialsException("user or password is invalid!");
+    }
+
     var user = userRepository.findByUsername(loginRequest.username());
 
-    if (user.isEmpty() || !user.get().isLoginCorrect(loginRequest, bCryptPasswordEncoder)) {
+    if (user.isEmpty()) {
+      usernameFilter.falsePositive();
       throw new BadCredentialsException("user or password is invalid!");
     }
 
-    var now = Instant.now();
+    CompletableFuture<Boolean> loginCorrect;
+    try {
+      loginCorrect = passwordHashingExecutor
+          .submit(() -> user.get().isLoginCorrect(loginRequest, bCryptPasswordEncoder));
+    } catch (RejectedExecutionException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
 
-    var expiresIn = 300L; // tempo de expiração do token em segundos (5 minutos)
+    return loginCorrect.thenApply(correct -> {
+      if (!correct) {
+        throw new BadCredentialsException("user or password is invalid!");
+      }
+      return issueToken(user.get());
+    });
+  }
+
+  /**
+   * Endpoint HTTP POST para renovação do token de acesso.
+   * 
+   * Recebe um refresh token emitido no login (ou em uma renovação anterior) e
+   * retorna um novo token de acesso junto com um novo refresh token. O token
+   * apresentado é consumido e não pode ser reutilizado; reapresentá-lo revoga
+   * todos os tokens emitidos a partir do mesmo login.
+   * 
+   * A renovação não executa o BCrypt: custa uma busca no
+   * {@link RefreshTokenStore}, a leitura do usuário e de suas roles pela chave
+   * primária e uma codificação JWT. As permissões do novo token refletem as
+   * roles atuais; um usuário removido não renova o acesso.
+   * 
+   * @param refreshTokenRequest objeto contendo o refresh token.
+   * @return um {@link ResponseEntity} contendo {@link LoginResponse} com os novos
+   *         tokens.
+   * @throws BadCredentialsException caso o refresh token seja inválido, já
+   *                                 usado ou expirado, ou o usuário não exista
+   *                                 mais.
+   */
+  @PostMapping("/token/refresh")
+  public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshTokenRequest refreshTokenRequest) {
+    var entry = refreshTokenStore.consume(refreshTokenRequest.refreshToken())
+        .orElseThrow(() -> new BadCredentialsException("refresh token is invalid!"));
+
+    var user = userRepository.findById(entry.userId());
+    if (user.isEmpty()) {
+      refreshTokenStore.revoke(entry.family());
+      throw new BadCredentialsException("refresh token is invalid!");
+    }
 
+    var refreshToken = refreshTokenStore.rotate(entry)
+        .orElseThrow(() -> new BadCredentialsException("refresh token is invalid!"));
+    return issueToken(user.get(), refreshToken);
+  }
+
+  /**
+   * Gera o token JWT de acesso e o refresh token de um novo login.
+   * 
+   * @param user usuário autenticado.
+   * @return resposta HTTP 200 com os tokens e o tempo de expiração.
+   */
+  private ResponseEntity<LoginResponse> issueToken(User user) {
+    return issueToken(user, refreshTokenStore.issue(user.getUserId()));
+  }
+
+  /**
+   * Gera o token JWT de acesso do usuário, com as suas roles atuais.
+   * 
+   * @param user         usuário autenticado.
+   * @param refreshToken refresh token devolvido junto com o token de acesso.
+   * @return resposta HTTP 200 com os tokens e o tempo de expiração.
+   */
+  private ResponseEntity<LoginResponse> issueToken(User user, String refreshToken) {
     // Concatena os nomes das roles do usuário, convertendo para uppercase,
     // separadas por espaço
-    var scopes = user.get().getRoles()
+    var scopes = user.getRoles()
         .stream()
         .map(role -> role.getName().toUpperCase())
         .collect(Collectors.joining(" "));
 
+    var now = Instant.now();
+
+    var expiresIn = 300L; // tempo de expiração do token em segundos (5 minutos)
+
     // Construção do conjunto de claims para o JWT
     var claims = JwtClaimsSet
         .builder()
         .issuer("mybackend") // Emissor do token
-        .subject(user.get().getUserId().toString()) // Identificador do usuário
+        .subject(user.getUserId().toString()) // Identificador do usuário
         .issuedAt(now) // Data/hora de emissão
         .expiresAt(now.plusSeconds(expiresIn)) // Data/hora de expiração
         .claim("scope", scopes) // Claim customizada com permissões do usuário
@@ -108,8 +224,8 @@ public class TokenController {
     // Geração do token JWT
     var jwtValue = jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
 
-    // Retorna o token e o tempo de expiração na resposta HTTP 200
-    return ResponseEntity.ok(new LoginResponse(jwtValue, expiresIn));
+    // Retorna os tokens e o tempo de expiração na resposta HTTP 200
+    return ResponseEntity.ok(new LoginResponse(jwtValue, expiresIn, refreshToken));
   }
 
 }
@@ -0,0 +1,59 @@
+package tech.buildrun.springsecurity.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import tech.buildrun.springsecurity.controller.dto.TrendingDto;
+import tech.buildrun.springsecurity.service.TrendingService;
+
+/**
+ * Controlador REST dos assuntos em alta.
+ *
+ * Os rankings são mantidos em memória pelo {@link TrendingService} a partir
+ * dos tweets criados, sem consultar o banco.
+ *
+ * @author Emanuel
+ */
+@RestController
+public class TrendingController {
+
+  /**
+   * Serviço que mantém os rankings.
+   */
+  private final TrendingService trendingService;
+
+  /**
+   * Construtor com injeção do serviço de assuntos em alta.
+   *
+   * @param trendingService serviço que mantém os rankings.
+   */
+  public TrendingController(TrendingService trendingService) {
+    this.trendingService = trendingService;
+  }
+
+  /**
+   * Endpoint HTTP GET para as hashtags (ou menções) mais frequentes nos últimos
+   * 5 minutos, 1 hora e 24 horas.
+   *
+   * As contagens são aproximadas e os rankings são atualizados a cada
+   * {@code trending.refresh-interval}.
+   *
+   * @param type {@code hashtags} (padrão) ou {@code mentions}.
+   * @return um objeto {@link TrendingDto} com o ranking de cada janela.
+   * @throws ResponseStatusException com status 400 (Bad Request) caso o tipo
+   *                                 seja desconhecido.
+   */
+  @GetMapping("/trending")
+  public ResponseEntity<TrendingDto> trending(@RequestParam(value = "type", defaultValue = "hashtags") String type) {
+    return switch (type) {
+      case "hashtags" -> ResponseEntity.ok(trendingService.hashtags());
+      case "mentions" -> ResponseEntity.ok(trendingService.mentions());
+      default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown trending type: " + type);
+    };
+  }
+
+}
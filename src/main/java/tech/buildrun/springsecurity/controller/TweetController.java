@@ -1,33 +1,74 @@
 package tech.buildrun.springsecurity.controller;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import tech.buildrun.springsecurity.controller.dto.CreateTweetDto;
+import tech.buildrun.springsecurity.controller.dto.CreateTweetResponse;
+import tech.buildrun.springsecurity.controller.dto.FeedCursor;
+import tech.buildrun.springsecurity.controller.dto.FeedCursorDto;
 import tech.buildrun.springsecurity.controller.dto.FeedDto;
 import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.controller.dto.SearchDto;
+import tech.buildrun.springsecurity.controller.dto.TimelineDto;
 import tech.buildrun.springsecurity.entities.Role;
 import tech.buildrun.springsecurity.entities.Tweet;
 import tech.buildrun.springsecurity.repository.TweetRepository;
 import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.FeedEncoder;
+import tech.buildrun.springsecurity.service.FeedPageCache;
+import tech.buildrun.springsecurity.service.FeedStreamService;
+import tech.buildrun.springsecurity.service.FeedVersion;
+import tech.buildrun.springsecurity.service.HomeTimelineService;
+import tech.buildrun.springsecurity.service.RecentWriteTracker;
+import tech.buildrun.springsecurity.service.RoleRegistry;
+import tech.buildrun.springsecurity.service.TrendingService;
+import tech.buildrun.springsecurity.service.TweetCounter;
+import tech.buildrun.springsecurity.service.TweetIdAllocator;
+import tech.buildrun.springsecurity.service.TweetSearchService;
+import tech.buildrun.springsecurity.service.TweetWriteBehindBuffer;
 
 /**
  * Controlador REST responsável por operações CRUD relacionadas aos Tweets.
  * 
- * Permite criar, deletar tweets e consultar o feed paginado de tweets.
+ * Permite criar, deletar tweets, consultar o feed paginado de tweets (ou
+ * acompanhá-lo ao vivo por SSE), a timeline pessoal do usuário autenticado e
+ * buscar tweets por texto.
  * 
  * Utiliza autenticação JWT para validar permissões e identificar o usuário.
  * 
@@ -36,6 +77,8 @@ import tech.buildrun.springsecurity.repository.UserRepository;
 @RestController
 public class TweetController {
 
+  private static final Logger log = LoggerFactory.getLogger(TweetController.class);
+
   /**
    * Repositório para persistência e recuperação de tweets.
    */
@@ -47,45 +90,239 @@ public class TweetController {
   private final UserRepository userRepository;
 
   /**
-   * Construtor com injeção dos repositórios necessários.
+   * Serviço das timelines pessoais, alimentadas por fan-out na escrita.
+   */
+  private final HomeTimelineService homeTimelineService;
+
+  /**
+   * Alocador de IDs de tweets, usado no modo write-behind.
+   */
+  private final TweetIdAllocator tweetIdAllocator;
+
+  /**
+   * Buffer de gravação em lote, usado quando o modo write-behind está
+   * habilitado.
+   */
+  private final TweetWriteBehindBuffer tweetWriteBehindBuffer;
+
+  /**
+   * Contador mantido da quantidade de tweets, exibido no feed.
+   */
+  private final TweetCounter tweetCounter;
+
+  /**
+   * Registro dos autores que escreveram recentemente, para que leiam do
+   * primário.
+   */
+  private final RecentWriteTracker recentWriteTracker;
+
+  /**
+   * Índice de busca textual, atualizado a cada criação e remoção.
+   */
+  private final TweetSearchService tweetSearchService;
+
+  /**
+   * Contagem das hashtags e menções dos tweets criados.
+   */
+  private final TrendingService trendingService;
+
+  /**
+   * Registro das roles, usado na verificação de permissão da remoção.
+   */
+  private final RoleRegistry roleRegistry;
+
+  /**
+   * Feed ao vivo por SSE, que recebe cada tweet criado.
+   */
+  private final FeedStreamService feedStreamService;
+
+  /**
+   * Versão do feed, da qual deriva o ETag das respostas do {@code /feed}.
+   */
+  private final FeedVersion feedVersion;
+
+  /**
+   * Codificação das páginas do feed no formato negociado.
+   */
+  private final FeedEncoder feedEncoder;
+
+  /**
+   * Cache das primeiras páginas do feed.
+   */
+  private final FeedPageCache feedPageCache;
+
+  /**
+   * Cabeçalho Cache-Control das respostas do {@code /feed}.
+   */
+  private final CacheControl feedCacheControl;
+
+  /**
+   * Maior tamanho de página aceito nas listagens.
+   */
+  private final int maxPageSize;
+
+  /**
+   * Executor das tarefas da aplicação, onde rodam os efeitos de um tweet
+   * gravado de forma assíncrona.
+   */
+  private final Executor applicationTaskExecutor;
+
+  /**
+   * Transação somente leitura da consulta do feed, aberta só quando a página
+   * precisa de fato ser lida do banco.
+   */
+  private final TransactionTemplate readOnlyTransaction;
+
+  /**
+   * Construtor com injeção dos repositórios e serviços necessários.
    * 
-   * @param tweetRepository repositório de tweets.
-   * @param userRepository  repositório de usuários.
+   * @param tweetRepository        repositório de tweets.
+   * @param userRepository         repositório de usuários.
+   * @param homeTimelineService    serviço das timelines pessoais.
+   * @param tweetIdAllocator       alocador de IDs de tweets.
+   * @param tweetWriteBehindBuffer buffer de gravação em lote.
+   * @param tweetCounter           contador da quantidade de tweets.
+   * @param recentWriteTracker     registro dos autores que escreveram
+   *                               recentemente.
+   * @param tweetSearchService     índice de busca textual.
+   * @param trendingService        contagem dos assuntos em alta.
+   * @param roleRegistry           registro das roles.
+   * @param feedStreamService      feed ao vivo por SSE.
+   * @param feedVersion            versão do feed.
+   * @param feedEncoder            codificação das páginas do feed.
+   * @param feedPageCache          cache das primeiras páginas do feed.
+   * @param feedMaxAge             validade das respostas do feed nos clientes.
+   * @param maxPageSize            maior tamanho de página aceito.
+   * @param applicationTaskExecutor executor das tarefas da aplicação.
+   * @param transactionManager     gerenciador das transações.
    */
-  public TweetController(TweetRepository tweetRepository, UserRepository userRepository) {
+  public TweetController(TweetRepository tweetRepository, UserRepository userRepository,
+      HomeTimelineService homeTimelineService, TweetIdAllocator tweetIdAllocator,
+      TweetWriteBehindBuffer tweetWriteBehindBuffer, TweetCounter tweetCounter,
+      RecentWriteTracker recentWriteTracker, TweetSearchService tweetSearchService,
+      TrendingService trendingService, RoleRegistry roleRegistry, FeedStreamService feedStreamService,
+      FeedVersion feedVersion, FeedEncoder feedEncoder, FeedPageCache feedPageCache,
+      @Value("${feed.cache.max-age:0s}") Duration feedMaxAge,
+      @Value("${pagination.max-page-size:100}") int maxPageSize,
+      @Qualifier("applicationTaskExecutor") Executor applicationTaskExecutor,
+      PlatformTransactionManager transactionManager) {
     this.tweetRepository = tweetRepository;
     this.userRepository = userRepository;
+    this.homeTimelineService = homeTimelineService;
+    this.tweetIdAllocator = tweetIdAllocator;
+    this.tweetWriteBehindBuffer = tweetWriteBehindBuffer;
+    this.tweetCounter = tweetCounter;
+    this.recentWriteTracker = recentWriteTracker;
+    this.tweetSearchService = tweetSearchService;
+    this.trendingService = trendingService;
+    this.roleRegistry = roleRegistry;
+    this.feedStreamService = feedStreamService;
+    this.feedVersion = feedVersion;
+    this.feedEncoder = feedEncoder;
+    this.feedPageCache = feedPageCache;
+    // Privado: a resposta é de uma requisição autenticada e não pode ser
+    // guardada por caches compartilhados
+    this.feedCacheControl = CacheControl.maxAge(feedMaxAge).cachePrivate();
+    this.maxPageSize = maxPageSize;
+    this.applicationTaskExecutor = applicationTaskExecutor;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
   }
 
   /**
    * Endpoint HTTP POST para criação de um novo tweet.
    * 
    * Recebe um DTO com conteúdo do tweet e o token JWT autenticado do usuário.
-   * Cria um tweet associado ao usuário autenticado.
+   * Cria um tweet associado ao usuário autenticado e o distribui para as
+   * timelines dos seguidores.
+   * 
+   * Com o modo write-behind habilitado, o ID vem do alocador pooled e o tweet é
+   * gravado em lote pelo {@link TweetWriteBehindBuffer}; a espera pela gravação
+   * depende da durabilidade configurada. Com durabilidade {@code ASYNC}, a
+   * contagem, as timelines, a busca, os assuntos em alta e o feed ao vivo só
+   * recebem o tweet depois do commit do seu lote, e nunca, se a gravação
+   * falhar.
    * 
    * @param createTweetDto DTO contendo o conteúdo do tweet.
    * @param token          token JWT autenticado contendo identificação do
    *                       usuário.
-   * @return resposta HTTP 200 OK sem corpo.
+   * @return resposta HTTP 200 OK com o ID atribuído ao tweet.
+   * @throws ResponseStatusException com status 503 (Service Unavailable) caso a
+   *                                 fila de gravação em lote esteja cheia, ou
+   *                                 422 (Unprocessable Entity) caso o usuário do
+   *                                 token não exista mais.
    */
   @PostMapping("/tweets")
-  public ResponseEntity<Void> createTweet(@RequestBody CreateTweetDto createTweetDto, JwtAuthenticationToken token) {
-    var user = userRepository.findById(UUID.fromString(token.getName()));
+  public ResponseEntity<CreateTweetResponse> createTweet(@RequestBody CreateTweetDto createTweetDto,
+      JwtAuthenticationToken token) {
+    var authorId = UUID.fromString(token.getName());
 
+    // Referência apenas pelo ID: o autor não é carregado do banco. Se o usuário
+    // não existir mais, a chave estrangeira de tb_tweets rejeita o insert.
     var tweet = new Tweet();
-    tweet.setUser(user.get());
+    tweet.setUser(userRepository.getReferenceById(authorId));
     tweet.setContent(createTweetDto.content());
 
-    tweetRepository.save(tweet);
+    CompletableFuture<Void> stored;
+    try {
+      if (tweetWriteBehindBuffer.isEnabled()) {
+        tweet.setTweetId(tweetIdAllocator.allocate());
+        tweet.setCreationTimeStamp(Instant.now());
+        stored = tweetWriteBehindBuffer.write(tweet);
+      } else {
+        tweetRepository.save(tweet);
+        stored = CompletableFuture.completedFuture(null);
+      }
+    } catch (RejectedExecutionException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    } catch (DataIntegrityViolationException e) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "author does not exist");
+    }
 
-    return ResponseEntity.ok().build();
+    recentWriteTracker.markWrite(token.getName());
+    if (stored.isDone()) {
+      tweetCreated(tweet, authorId);
+    } else {
+      // Gravação ainda pendente (ASYNC): fora da thread de gravação, que não
+      // deve esperar o fan-out
+      stored.thenRunAsync(() -> tweetCreated(tweet, authorId), applicationTaskExecutor)
+          .exceptionally(e -> {
+            log.warn("tweet {} was not stored, skipping its side effects", tweet.getTweetId());
+            return null;
+          });
+    }
+
+    return ResponseEntity.ok(new CreateTweetResponse(tweet.getTweetId()));
+  }
+
+  /**
+   * Propaga um tweet já gravado para a contagem, as timelines, a busca, os
+   * assuntos em alta e o feed ao vivo.
+   * 
+   * @param tweet    tweet gravado.
+   * @param authorId ID do autor.
+   */
+  private void tweetCreated(Tweet tweet, UUID authorId) {
+    tweetCounter.increment();
+    feedVersion.bump();
+    homeTimelineService.fanOut(authorId, tweet.getTweetId());
+    tweetSearchService.index(tweet.getTweetId(), tweet.getContent());
+    trendingService.record(tweet.getContent());
+    feedStreamService.publish(tweet.getTweetId(), tweet.getContent(), authorId, tweet.getCreationTimeStamp());
   }
 
   /**
    * Endpoint HTTP DELETE para remoção de um tweet por seu ID.
    * 
    * Permite que apenas o autor do tweet ou um usuário com role ADMIN possa
-   * deletar.
+   * deletar. A role ADMIN é verificada nas autoridades do token, pelo
+   * {@link RoleRegistry}, e a permissão é decidida pelo próprio banco, num único
+   * update condicional que marca o tweet como removido. A linha é apagada depois
+   * pelo {@link tech.buildrun.springsecurity.service.TweetPurger}.
+   * 
+   * Só quando nada é removido uma segunda consulta distingue o tweet inexistente
+   * do tweet de outro usuário. O tweet removido deixa de aparecer nas
+   * timelines já materializadas, sem outra consulta.
    * 
    * @param tweetId ID do tweet a ser deletado.
    * @param token   token JWT autenticado do usuário que faz a requisição.
@@ -96,20 +333,23 @@ public class TweetController {
   @DeleteMapping("/tweets/{id}")
   public ResponseEntity<Void> deleteTweet(@PathVariable("id") Long tweetId, JwtAuthenticationToken token) {
 
-    var user = userRepository.findById(UUID.fromString(token.getName()));
-
-    var tweet = tweetRepository.findById(tweetId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    // Roles vindas do próprio token, sem carregar o usuário
+    var isAdmin = roleRegistry.has(roleRegistry.mask(token.getAuthorities()), Role.Values.ADMIN);
 
-    var isAdmin = user.get().getRoles().stream()
-        .anyMatch(role -> role.getName().equalsIgnoreCase(Role.Values.ADMIN.name()));
-
-    if (isAdmin || tweet.getUser().getUserId().equals(UUID.fromString(token.getName()))) {
-      tweetRepository.deleteById(tweetId);
-      return ResponseEntity.ok().build();
-    } else {
-      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    var deleted = tweetRepository.softDelete(tweetId, UUID.fromString(token.getName()), isAdmin, Instant.now());
+    if (deleted == 0) {
+      if (tweetRepository.existsByTweetIdAndDeletedAtIsNull(tweetId)) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+      }
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND);
     }
+
+    tweetCounter.decrement();
+    feedVersion.bump();
+    homeTimelineService.remove(tweetId);
+    tweetSearchService.remove(tweetId);
+    recentWriteTracker.markWrite(token.getName());
+    return ResponseEntity.ok().build();
   }
 
   /**
@@ -119,19 +359,218 @@ public class TweetController {
    * Os parâmetros de paginação são opcionais e possuem valores padrão: page = 0 e
    * pageSize = 10.
    * 
+   * O total de elementos e de páginas vem do {@link TweetCounter} mantido em
+   * memória, e não de uma consulta de contagem, podendo divergir brevemente da
+   * quantidade exata de tweets.
+   * 
+   * Somente leitura: com réplicas configuradas, é servido por uma delas, exceto
+   * logo após o próprio usuário publicar ou remover um tweet. A transação
+   * envolve apenas a consulta da página; o 304, o cache e a espera por uma
+   * consulta já em andamento não ocupam conexão do pool.
+   * 
+   * A resposta leva um ETag derivado da {@link FeedVersion} e do total de
+   * tweets; quando o {@code If-None-Match} coincide, responde 304 Not Modified
+   * sem consultar o banco. O Cache-Control é privado: só o próprio cliente
+   * guarda a resposta, nunca um cache compartilhado.
+   * 
+   * O formato segue o {@code Accept}: JSON, CBOR ({@code application/cbor}) ou
+   * Smile ({@code application/x-jackson-smile}). As páginas mais requisitadas
+   * são servidas já codificadas pelo {@link FeedEncoder} e, nas demais
+   * codificações, lidas do {@link FeedPageCache}, com uma única consulta ao
+   * banco por mudança do feed; quem acabou de escrever não passa pelo cache.
+   * 
    * @param page     número da página a ser consultada (zero-based).
    * @param pageSize quantidade de tweets por página.
-   * @return um objeto {@link FeedDto} contendo a lista de tweets e metadados da
-   *         paginação.
+   * @param headers  cabeçalhos da requisição, com os tipos aceitos.
+   * @param request  requisição, para a verificação do {@code If-None-Match}.
+   * @param token    token JWT do usuário autenticado.
+   * @return um objeto {@link FeedDto} codificado, contendo a lista de tweets e
+   *         metadados da paginação, ou 304 Not Modified.
+   * @throws HttpMediaTypeNotAcceptableException caso nenhum formato suportado
+   *                                             seja aceito.
+   * @throws ResponseStatusException             com status 400 (Bad Request)
+   *                                             caso a página ou o tamanho
+   *                                             sejam inválidos.
    */
   @GetMapping("/feed")
-  public ResponseEntity<FeedDto> feed(@RequestParam(value = "page", defaultValue = "0") int page,
+  public ResponseEntity<byte[]> feed(@RequestParam(value = "page", defaultValue = "0") int page,
+      @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+      @RequestHeader HttpHeaders headers, WebRequest request, JwtAuthenticationToken token)
+      throws HttpMediaTypeNotAcceptableException {
+    checkPage(page, pageSize);
+    var format = FeedEncoder.negotiate(headers.getAccept());
+    if (format == null) {
+      throw new HttpMediaTypeNotAcceptableException(
+          Arrays.stream(FeedEncoder.Format.values()).map(FeedEncoder.Format::mediaType).toList());
+    }
+
+    var total = tweetCounter.get();
+    var etag = feedVersion.etag("page", format, total, page, pageSize);
+    if (etag != null && request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .cacheControl(feedCacheControl)
+          .varyBy(HttpHeaders.ACCEPT)
+          .build();
+    }
+
+    Supplier<FeedDto> loader = () -> readOnlyTransaction.execute(status -> {
+      var tweets = tweetRepository.findFeed(PageRequest.of(page, pageSize));
+      var totalPages = (int) ((total + pageSize - 1) / pageSize);
+      return new FeedDto(tweets, page, pageSize, totalPages, total);
+    });
+    // Quem acabou de escrever lê do primário, sem passar pelo cache: uma página
+    // lida da réplica por outro usuário não teria a sua escrita
+    var body = feedEncoder.encode(format, etag, page, pageSize,
+        () -> recentWriteTracker.isRecentWriter(token.getName())
+            ? loader.get()
+            : feedPageCache.get(page, pageSize, total, loader));
+    return ResponseEntity.ok()
+        .contentType(format.mediaType())
+        .cacheControl(feedCacheControl)
+        .varyBy(HttpHeaders.ACCEPT)
+        .body(body);
+  }
+
+  /**
+   * Endpoint HTTP GET para o feed no modo cursor (keyset).
+   * 
+   * Selecionado quando o parâmetro {@code after} está presente. Um valor vazio
+   * retorna a primeira página; nas páginas seguintes o cliente repassa o
+   * {@code nextCursor} recebido na resposta anterior.
+   * 
+   * Cada chamada executa uma única varredura de intervalo no índice do feed,
+   * sem OFFSET e sem consulta de contagem; por isso a resposta não informa o
+   * total de páginas nem de elementos.
+   * 
+   * @param after    cursor opaco retornado pela página anterior, ou vazio para a
+   *                 primeira página.
+   * @param pageSize quantidade de tweets por página.
+   * @return um objeto {@link FeedCursorDto} com os tweets e o cursor da próxima
+   *         página, ou {@code null} quando não houver mais tweets.
+   * @throws ResponseStatusException com status 400 (Bad Request) caso o cursor
+   *                                 ou o tamanho da página sejam inválidos.
+   */
+  @GetMapping(value = "/feed", params = "after")
+  public ResponseEntity<FeedCursorDto> feedAfter(@RequestParam("after") String after,
       @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
-    var tweets = tweetRepository.findAll(
-        PageRequest.of(page, pageSize, Sort.Direction.DESC, "creationTimeStamp"))
-        .map(tweet -> new FeedItemDto(tweet.getTweetId(), tweet.getContent(), tweet.getUser().getUsername()));
-    return ResponseEntity
-        .ok(new FeedDto(tweets.getContent(), page, pageSize, tweets.getTotalPages(), tweets.getTotalElements()));
+    checkPage(0, pageSize);
+    List<FeedItemDto> items;
+    if (after.isBlank()) {
+      items = tweetRepository.findFeedFirstPage(Limit.of(pageSize));
+    } else {
+      FeedCursor cursor;
+      try {
+        cursor = FeedCursor.decode(after);
+      } catch (IllegalArgumentException e) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+      }
+      items = tweetRepository.findFeedAfter(cursor.creationTimeStamp(), cursor.tweetId(), Limit.of(pageSize));
+    }
+
+    // Só existe próxima página se esta veio completa
+    String nextCursor = null;
+    if (items.size() == pageSize) {
+      var last = items.get(items.size() - 1);
+      nextCursor = new FeedCursor(last.creationTimeStamp(), last.tweetId()).encode();
+    }
+
+    return ResponseEntity.ok(new FeedCursorDto(items, pageSize, nextCursor));
+  }
+
+  /**
+   * Endpoint HTTP GET para o feed ao vivo, por Server-Sent Events.
+   * 
+   * Cada tweet criado a partir da conexão chega como um evento {@code tweet}
+   * com o {@link FeedItemDto}, substituindo o polling do {@code /feed}. Ao
+   * reconectar, o navegador envia o {@code Last-Event-ID} e recebe os eventos
+   * perdidos, ou um evento {@code reset} caso não estejam mais disponíveis.
+   * 
+   * @param lastEventId ID do último evento recebido, enviado pelo navegador
+   *                    ao reconectar.
+   * @return emitter da resposta {@code text/event-stream}.
+   * @throws ResponseStatusException com status 503 (Service Unavailable) caso o
+   *                                 limite de conexões tenha sido atingido.
+   */
+  @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter feedStream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    try {
+      return feedStreamService.subscribe(lastEventId);
+    } catch (RejectedExecutionException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+  }
+
+  /**
+   * Endpoint HTTP GET para a timeline pessoal do usuário autenticado: os seus
+   * tweets e os de quem ele segue, do mais recente ao mais antigo.
+   * 
+   * A timeline é mantida em memória por fan-out na escrita, de modo que a
+   * leitura consulta apenas os tweets da página solicitada.
+   * 
+   * @param page     número da página a ser consultada (zero-based).
+   * @param pageSize quantidade de tweets por página.
+   * @param token    token JWT autenticado do usuário.
+   * @return um objeto {@link TimelineDto} com os tweets da página.
+   * @throws ResponseStatusException com status 400 (Bad Request) caso a página
+   *                                 seja inválida.
+   */
+  @GetMapping("/timeline")
+  public ResponseEntity<TimelineDto> timeline(@RequestParam(value = "page", defaultValue = "0") int page,
+      @RequestParam(value = "pageSize", defaultValue = "10") int pageSize, JwtAuthenticationToken token) {
+    checkPage(page, pageSize);
+    var items = homeTimelineService.read(UUID.fromString(token.getName()), page, pageSize);
+    return ResponseEntity.ok(new TimelineDto(items, page, pageSize));
+  }
+
+  /**
+   * Endpoint HTTP GET para busca textual nos tweets.
+   * 
+   * Retorna os tweets que contêm todos os termos da consulta (sem distinção de
+   * maiúsculas e acentos), do mais relevante ao menos; no empate, o mais recente
+   * primeiro. A consulta é resolvida pelo índice invertido em memória e apenas
+   * os tweets da página são lidos do banco.
+   * 
+   * @param query    texto da consulta.
+   * @param page     número da página a ser consultada (zero-based).
+   * @param pageSize quantidade de tweets por página.
+   * @return um objeto {@link SearchDto} com os tweets da página e o total de
+   *         resultados.
+   * @throws ResponseStatusException com status 503 (Service Unavailable)
+   *                                 enquanto o índice é carregado, ou 400 (Bad
+   *                                 Request) caso a página seja inválida ou
+   *                                 esteja além dos primeiros 1000 resultados.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<SearchDto> search(@RequestParam("q") String query,
+      @RequestParam(value = "page", defaultValue = "0") int page,
+      @RequestParam(value = "pageSize", defaultValue = "10") int pageSize) {
+    TweetSearchService.Page result;
+    try {
+      result = tweetSearchService.search(query, page, pageSize);
+    } catch (IllegalStateException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    } catch (IllegalArgumentException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+    return ResponseEntity.ok(new SearchDto(result.items(), page, pageSize, result.totalHits()));
+  }
+
+  /**
+   * Valida os parâmetros de paginação de uma listagem.
+   * 
+   * @param page     número da página (zero-based).
+   * @param pageSize quantidade de itens por página.
+   * @throws ResponseStatusException com status 400 (Bad Request) caso a página
+   *                                 seja negativa ou o tamanho esteja fora de
+   *                                 {@code 1..pagination.max-page-size}.
+   */
+  private void checkPage(int page, int pageSize) {
+    if (page < 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must not be negative");
+    }
+    if (pageSize < 1 || pageSize > maxPageSize) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize must be between 1 and " + maxPageSize);
+    }
   }
 
 }
@@ -0,0 +1,61 @@
+package tech.buildrun.springsecurity.controller;
+
+import java.io.InputStream;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import tech.buildrun.springsecurity.service.TweetImportService;
+
+/**
+ * Controlador REST da importação em massa de tweets, usada na migração de
+ * dados históricos.
+ *
+ * Recurso protegido, acessível apenas para usuários com autoridade ADMIN.
+ *
+ * @author Emanuel
+ */
+@RestController
+public class TweetImportController {
+
+  /**
+   * Serviço que lê, valida e grava os tweets importados.
+   */
+  private final TweetImportService tweetImportService;
+
+  /**
+   * Construtor com injeção do serviço de importação.
+   *
+   * @param tweetImportService serviço de importação.
+   */
+  public TweetImportController(TweetImportService tweetImportService) {
+    this.tweetImportService = tweetImportService;
+  }
+
+  /**
+   * Endpoint HTTP POST para importar tweets em massa.
+   *
+   * O corpo é NDJSON, um tweet por linha:
+   * {@code {"username": "...", "content": "...", "createdAt": "2020-01-01T00:00:00Z"}}
+   * ({@code createdAt} é opcional). O corpo é lido em streaming e gravado em
+   * blocos; a resposta, também NDJSON, traz uma linha por tweet rejeitado e o
+   * progresso a cada bloco gravado, terminando com o resumo
+   * ({@code "done": true}).
+   *
+   * @param body corpo da requisição.
+   * @return corpo da resposta em streaming com HTTP 200 OK.
+   */
+  @PostMapping(value = "/tweets/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<StreamingResponseBody> importTweets(InputStream body) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(out -> tweetImportService.importNdjson(body, out));
+  }
+
+}
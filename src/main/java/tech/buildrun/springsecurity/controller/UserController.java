@@ -1,32 +1,57 @@
 package tech.buildrun.springsecurity.controller;
 
-import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.annotation.PreDestroy;
 
-import jakarta.transaction.Transactional;
 import tech.buildrun.springsecurity.controller.dto.CreateUserDto;
+import tech.buildrun.springsecurity.entities.Follow;
+import tech.buildrun.springsecurity.entities.FollowId;
 import tech.buildrun.springsecurity.entities.Role;
 import tech.buildrun.springsecurity.entities.User;
-import tech.buildrun.springsecurity.repository.RoleRepository;
+import tech.buildrun.springsecurity.repository.FollowRepository;
 import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.HomeTimelineService;
+import tech.buildrun.springsecurity.service.PasswordHashingExecutor;
+import tech.buildrun.springsecurity.service.RoleRegistry;
+import tech.buildrun.springsecurity.service.UserListingService;
+import tech.buildrun.springsecurity.service.UsernameFilter;
 
 /**
  * Controlador REST para gerenciamento de usuários do sistema.
  * 
- * Permite o cadastro de novos usuários e listagem de usuários existentes.
+ * Permite o cadastro de novos usuários, listagem de usuários existentes e o
+ * gerenciamento de quem cada usuário segue.
  * A listagem de usuários está protegida para usuários com permissão ADMIN.
  * 
- * Utiliza criptografia BCrypt para armazenar senhas de forma segura.
+ * Utiliza criptografia BCrypt para armazenar senhas de forma segura, executada
+ * no pool dedicado {@link PasswordHashingExecutor}.
  * 
  * @author Emanuel
  */
@@ -39,76 +64,269 @@ public class UserController {
   private final UserRepository userRepository;
 
   /**
-   * Repositório para acesso aos dados de roles (perfis/permissões).
+   * Registro das roles (perfis/permissões), carregado uma única vez.
+   */
+  private final RoleRegistry roleRegistry;
+
+  /**
+   * Pool dedicado para o hash BCrypt das senhas.
+   */
+  private final PasswordHashingExecutor passwordHashingExecutor;
+
+  /**
+   * Template de transação para a gravação do usuário após o hash da senha.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Repositório do grafo de seguidores.
+   */
+  private final FollowRepository followRepository;
+
+  /**
+   * Serviço das timelines pessoais, invalidadas quando o grafo muda.
+   */
+  private final HomeTimelineService homeTimelineService;
+
+  /**
+   * Serviço da listagem de usuários em streaming.
    */
-  private final RoleRepository roleRepository;
+  private final UserListingService userListingService;
 
   /**
-   * Encoder BCrypt para criptografia segura de senhas.
+   * Filtro de Bloom dos usernames cadastrados.
    */
-  private final BCryptPasswordEncoder bCryptPasswordEncoder;
+  private final UsernameFilter usernameFilter;
 
   /**
-   * Construtor com injeção dos repositórios e do encoder de senha.
+   * Pool limitado onde o cadastro é gravado depois do hash, para que a
+   * latência do banco não ocupe o pool BCrypt. Com a fila cheia o cadastro
+   * responde 503, como o próprio pool BCrypt.
+   */
+  private final ThreadPoolExecutor signupWriter;
+
+  /**
+   * Construtor com injeção dos repositórios, do pool de hash de senhas e do
+   * serviço de timelines.
    * 
-   * @param userRepository        repositório para usuários.
-   * @param roleRepository        repositório para roles.
-   * @param bCryptPasswordEncoder encoder para criptografar senhas.
+   * @param userRepository          repositório para usuários.
+   * @param roleRegistry            registro das roles.
+   * @param passwordHashingExecutor pool dedicado para o hash das senhas.
+   * @param transactionTemplate     template de transação.
+   * @param followRepository        repositório de seguidores.
+   * @param homeTimelineService     serviço das timelines pessoais.
+   * @param userListingService      serviço da listagem de usuários.
+   * @param usernameFilter          filtro de Bloom dos usernames.
+   * @param signupThreads           threads que gravam os cadastros.
+   * @param signupQueueCapacity     cadastros aguardando gravação, no máximo.
    */
-  public UserController(UserRepository userRepository, RoleRepository roleRepository,
-      BCryptPasswordEncoder bCryptPasswordEncoder) {
+  public UserController(UserRepository userRepository, RoleRegistry roleRegistry,
+      PasswordHashingExecutor passwordHashingExecutor, TransactionTemplate transactionTemplate,
+      FollowRepository followRepository, HomeTimelineService homeTimelineService,
+      UserListingService userListingService, UsernameFilter usernameFilter,
+      @Value("${users.signup.threads:4}") int signupThreads,
+      @Value("${users.signup.queue-capacity:64}") int signupQueueCapacity) {
     this.userRepository = userRepository;
-    this.roleRepository = roleRepository;
-    this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+    this.roleRegistry = roleRegistry;
+    this.passwordHashingExecutor = passwordHashingExecutor;
+    this.transactionTemplate = transactionTemplate;
+    this.followRepository = followRepository;
+    this.homeTimelineService = homeTimelineService;
+    this.userListingService = userListingService;
+    this.usernameFilter = usernameFilter;
+    this.signupWriter = new ThreadPoolExecutor(signupThreads, signupThreads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(signupQueueCapacity), Thread.ofPlatform().name("signup-writer-", 0).daemon().factory());
   }
 
   /**
    * Endpoint HTTP POST para criação de um novo usuário.
    * 
    * Recebe um DTO com nome de usuário e senha, valida se o usuário já existe
-   * e cria um novo usuário com a role básica padrão.
+   * e cria um novo usuário com a role básica padrão. A consulta ao banco é
+   * evitada quando o {@link UsernameFilter} garante que o username está livre.
+   * Um cadastro que passa pela validação sem ser novo (concorrente, ou de
+   * outra instância que o filtro ainda não conhece) é recusado pela constraint
+   * única e também responde 422. O username é então registrado no
+   * {@link UsernameFilter}.
    * 
-   * O método é transacional para garantir atomicidade da operação.
+   * O hash da senha é gerado de forma assíncrona no pool BCrypt; em seguida o
+   * usuário é gravado em uma transação, já fora do pool, em um pool próprio e
+   * também limitado ({@code users.signup.threads} e
+   * {@code users.signup.queue-capacity}).
    * 
    * @param createUserDto DTO contendo os dados para cadastro do usuário.
-   * @return resposta HTTP 200 OK em caso de sucesso.
+   * @return futuro da resposta HTTP 200 OK em caso de sucesso.
    * @throws ResponseStatusException com status 422 (Unprocessable Entity) caso o
-   *                                 username já exista.
+   *                                 username já exista, ou 503 (Service
+   *                                 Unavailable) caso o pool BCrypt ou o de
+   *                                 gravação estejam saturados.
    */
   @PostMapping("/users")
-  @Transactional
-  public ResponseEntity<Void> newUser(@RequestBody CreateUserDto createUserDto) {
-
-    var basicRole = roleRepository.findByName(Role.Values.BASIC.name());
+  public CompletableFuture<ResponseEntity<Void>> newUser(@RequestBody CreateUserDto createUserDto) {
 
-    var userFromDb = userRepository.findByUsername(createUserDto.username());
+    // Só consulta o banco se o filtro não garantir que o username está livre; um
+    // cadastro de outra instância ainda fora do filtro cai na constraint única
+    if (usernameFilter.mightExist(createUserDto.username())) {
+      if (userRepository.findByUsername(createUserDto.username()).isPresent()) {
+        throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+      }
+      usernameFilter.falsePositive();
+    }
 
-    if (userFromDb.isPresent()) {
-      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+    CompletableFuture<String> passwordHash;
+    try {
+      passwordHash = passwordHashingExecutor.encode(createUserDto.password());
+    } catch (RejectedExecutionException e) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
     }
 
-    var user = new User();
-    user.setUsername(createUserDto.username());
-    user.setPassword(bCryptPasswordEncoder.encode(createUserDto.password()));
-    user.setRoles(Set.of(basicRole));
+    return passwordHash.thenApplyAsync(hash -> {
+      try {
+        return transactionTemplate.execute(status -> {
+          var basicRole = roleRegistry.reference(Role.Values.BASIC);
 
-    userRepository.save(user);
+          var user = new User();
+          user.setUsername(createUserDto.username());
+          user.setPassword(hash);
+          user.setRoles(Set.of(basicRole));
 
-    return ResponseEntity.ok().build();
+          userRepository.save(user);
+
+          return ResponseEntity.ok().<Void>build();
+        });
+      } catch (DataIntegrityViolationException e) {
+        throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+      }
+    }, signupWriter).handle((response, e) -> {
+      if (e != null) {
+        var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+          throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "signup writer is saturated");
+        }
+        throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+      }
+      usernameFilter.add(createUserDto.username());
+      return response;
+    });
+  }
+
+  /**
+   * Encerra o pool de gravação dos cadastros, aguardando os pendentes.
+   *
+   * @throws InterruptedException caso a espera seja interrompida.
+   */
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    signupWriter.shutdown();
+    signupWriter.awaitTermination(10, TimeUnit.SECONDS);
   }
 
   /**
-   * Endpoint HTTP GET para listar todos os usuários cadastrados.
+   * Endpoint HTTP GET para listar os usuários cadastrados, como array JSON.
    * 
    * Recurso protegido, acessível apenas para usuários com autoridade ADMIN.
    * 
-   * @return lista de usuários do sistema com resposta HTTP 200 OK.
+   * A resposta é escrita em streaming pelo {@link UserListingService}, com
+   * memória constante, e traz apenas ID, nome e roles de cada usuário. A
+   * resposta não inclui um cursor: para continuar uma listagem interrompida por
+   * {@code limit}, o cliente repassa em {@code after} o ID do último usuário
+   * recebido; uma resposta com menos de {@code limit} usuários é a última.
+   * 
+   * @param username prefixo literal do nome de usuário (opcional).
+   * @param role     role que o usuário deve ter (opcional).
+   * @param after    ID do último usuário já recebido (opcional).
+   * @param limit    quantidade máxima de usuários; zero lista todos.
+   * @return corpo da resposta em streaming com HTTP 200 OK.
+   */
+  @GetMapping(value = "/users", produces = MediaType.APPLICATION_JSON_VALUE)
+  @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+  public ResponseEntity<StreamingResponseBody> listUsers(
+      @RequestParam(value = "username", required = false) String username,
+      @RequestParam(value = "role", required = false) String role,
+      @RequestParam(value = "after", required = false) UUID after,
+      @RequestParam(value = "limit", defaultValue = "0") long limit) {
+    var query = new UserListingService.Query(after, username, role, limit);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(out -> userListingService.writeJson(query, out));
+  }
+
+  /**
+   * Endpoint HTTP GET para listar os usuários cadastrados como NDJSON, um
+   * usuário por linha, selecionado por {@code Accept: application/x-ndjson}.
+   * 
+   * Mesmos filtros e cursor de {@link #listUsers}.
+   * 
+   * @param username prefixo do nome de usuário (opcional).
+   * @param role     role que o usuário deve ter (opcional).
+   * @param after    ID do último usuário já recebido (opcional).
+   * @param limit    quantidade máxima de usuários; zero lista todos.
+   * @return corpo da resposta em streaming com HTTP 200 OK.
    */
-  @GetMapping("/users")
+  @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
   @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
-  public ResponseEntity<List<User>> listUsers() {
-    var users = userRepository.findAll();
-    return ResponseEntity.ok(users);
+  public ResponseEntity<StreamingResponseBody> listUsersNdjson(
+      @RequestParam(value = "username", required = false) String username,
+      @RequestParam(value = "role", required = false) String role,
+      @RequestParam(value = "after", required = false) UUID after,
+      @RequestParam(value = "limit", defaultValue = "0") long limit) {
+    var query = new UserListingService.Query(after, username, role, limit);
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(out -> userListingService.writeNdjson(query, out));
+  }
+
+  /**
+   * Endpoint HTTP POST para o usuário autenticado passar a seguir outro usuário.
+   * 
+   * A operação é idempotente: seguir alguém que já é seguido não tem efeito.
+   * 
+   * @param userId ID do usuário a ser seguido.
+   * @param token  token JWT autenticado do usuário que segue.
+   * @return resposta HTTP 200 OK em caso de sucesso.
+   * @throws ResponseStatusException com status 404 (Not Found) caso o usuário
+   *                                 não exista, ou 422 (Unprocessable Entity)
+   *                                 caso o usuário tente seguir a si mesmo.
+   */
+  @PostMapping("/users/{id}/follow")
+  @Transactional
+  public ResponseEntity<Void> follow(@PathVariable("id") UUID userId, JwtAuthenticationToken token) {
+    var followerId = UUID.fromString(token.getName());
+
+    if (followerId.equals(userId)) {
+      throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    if (!userRepository.existsById(userId)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    if (!followRepository.existsById(new FollowId(followerId, userId))) {
+      followRepository.save(new Follow(userRepository.getReferenceById(followerId),
+          userRepository.getReferenceById(userId)));
+      homeTimelineService.invalidate(followerId);
+    }
+
+    return ResponseEntity.ok().build();
+  }
+
+  /**
+   * Endpoint HTTP DELETE para o usuário autenticado deixar de seguir outro
+   * usuário.
+   * 
+   * @param userId ID do usuário que deixará de ser seguido.
+   * @param token  token JWT autenticado do usuário que segue.
+   * @return resposta HTTP 200 OK, mesmo que a relação não existisse.
+   */
+  @DeleteMapping("/users/{id}/follow")
+  @Transactional
+  public ResponseEntity<Void> unfollow(@PathVariable("id") UUID userId, JwtAuthenticationToken token) {
+    var followerId = UUID.fromString(token.getName());
+
+    followRepository.deleteById(new FollowId(followerId, userId));
+    homeTimelineService.invalidate(followerId);
+
+    return ResponseEntity.ok().build();
   }
 
 }
@@ -0,0 +1,55 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Posição de leitura do feed no modo cursor (keyset).
+ * 
+ * Guarda o par (creationTimeStamp, tweetId) do último tweet entregue ao
+ * cliente. A próxima página começa estritamente depois desse par, o que
+ * permite ao banco resolver a consulta com uma única varredura no índice de
+ * ordenação do feed, sem OFFSET e sem {@code count(*)}.
+ * 
+ * O valor trafega como um token opaco em Base64 URL-safe; o formato interno
+ * não faz parte do contrato da API.
+ * 
+ * @param creationTimeStamp instante de criação do último tweet entregue.
+ * @param tweetId           identificador do último tweet entregue.
+ * 
+ * @author Emanuel
+ */
+public record FeedCursor(Instant creationTimeStamp, Long tweetId) {
+
+  /**
+   * Codifica o cursor em um token opaco.
+   * 
+   * @return token Base64 URL-safe sem padding.
+   */
+  public String encode() {
+    var raw = creationTimeStamp.getEpochSecond() + ":" + creationTimeStamp.getNano() + ":" + tweetId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodifica um token gerado por {@link #encode()}.
+   * 
+   * @param token token opaco recebido do cliente.
+   * @return o cursor correspondente.
+   * @throws IllegalArgumentException caso o token seja inválido.
+   */
+  public static FeedCursor decode(String token) {
+    try {
+      var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      var parts = raw.split(":");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("malformed feed cursor");
+      }
+      var instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+      return new FeedCursor(instant, Long.parseLong(parts[2]));
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("malformed feed cursor", e);
+    }
+  }
+}
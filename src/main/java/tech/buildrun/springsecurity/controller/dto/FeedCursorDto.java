@@ -0,0 +1,7 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.util.List;
+
+public record FeedCursorDto(List<FeedItemDto> feedItemDtos, int pageSize, String nextCursor) {
+
+}
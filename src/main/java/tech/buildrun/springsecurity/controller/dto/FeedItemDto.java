@@ -1,5 +1,7 @@
 package tech.buildrun.springsecurity.controller.dto;
 
-public record FeedItemDto(Long tweetId, String content, String username) {
+import java.time.Instant;
+
+public record FeedItemDto(Long tweetId, String content, String username, Instant creationTimeStamp) {
 
 }
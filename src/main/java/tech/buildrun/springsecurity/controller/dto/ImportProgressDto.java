@@ -0,0 +1,5 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+public record ImportProgressDto(long lines, long imported, long failed, long elapsedMillis, boolean done) {
+
+}
@@ -0,0 +1,7 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.time.Instant;
+
+public record ImportTweetDto(String username, String content, Instant createdAt) {
+
+}
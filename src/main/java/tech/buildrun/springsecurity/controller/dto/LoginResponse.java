@@ -1,5 +1,5 @@
 package tech.buildrun.springsecurity.controller.dto;
 
-public record LoginResponse(String accessToken, Long expiresIn) {
+public record LoginResponse(String accessToken, Long expiresIn, String refreshToken) {
 
 }
@@ -0,0 +1,5 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+public record RefreshTokenRequest(String refreshToken) {
+
+}
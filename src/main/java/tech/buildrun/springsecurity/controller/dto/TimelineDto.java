@@ -0,0 +1,7 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.util.List;
+
+public record TimelineDto(List<FeedItemDto> feedItemDtos, int page, int pageSize) {
+
+}
@@ -0,0 +1,5 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+public record TrendDto(String tag, long count) {
+
+}
@@ -0,0 +1,7 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.util.List;
+
+public record TrendingDto(List<TrendDto> lastFiveMinutes, List<TrendDto> lastHour, List<TrendDto> lastDay) {
+
+}
@@ -0,0 +1,12 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UserItemDto(UUID userId, String username, List<String> roles) {
+
+  public UserItemDto(UUID userId, String username) {
+    this(userId, username, List.of());
+  }
+
+}
@@ -0,0 +1,7 @@
+package tech.buildrun.springsecurity.controller.dto;
+
+import java.util.UUID;
+
+public record UserRoleDto(UUID userId, String roleName) {
+
+}
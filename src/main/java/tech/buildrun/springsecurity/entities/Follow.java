@@ -0,0 +1,105 @@
+package tech.buildrun.springsecurity.entities;
+
+import java.time.Instant;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidade JPA que representa a relação "segue" entre dois usuários.
+ * 
+ * Mapeada para a tabela "tb_follows" no banco de dados.
+ * 
+ * A chave primária é o par (follower_id, followed_id); o índice
+ * {@code idx_follows_followed} atende a consulta inversa, usada no fan-out de
+ * novos tweets para os seguidores do autor.
+ * 
+ * @author Emanuel
+ */
+@Entity
+@Table(name = "tb_follows", indexes = @Index(name = "idx_follows_followed", columnList = "followed_id, follower_id"))
+public class Follow {
+
+  /**
+   * Chave composta (seguidor, seguido).
+   */
+  @EmbeddedId
+  private FollowId id;
+
+  /**
+   * Usuário que segue.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @MapsId("followerId")
+  @JoinColumn(name = "follower_id")
+  private User follower;
+
+  /**
+   * Usuário seguido.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @MapsId("followedId")
+  @JoinColumn(name = "followed_id")
+  private User followed;
+
+  /**
+   * Timestamp de quando a relação foi criada.
+   */
+  @CreationTimestamp
+  private Instant creationTimeStamp;
+
+  /**
+   * Construtor padrão exigido pelo JPA.
+   */
+  public Follow() {
+  }
+
+  /**
+   * Cria a relação entre os usuários informados.
+   * 
+   * @param follower usuário que segue.
+   * @param followed usuário seguido.
+   */
+  public Follow(User follower, User followed) {
+    this.id = new FollowId(follower.getUserId(), followed.getUserId());
+    this.follower = follower;
+    this.followed = followed;
+  }
+
+  /**
+   * Retorna a chave composta da relação.
+   * 
+   * @return chave (seguidor, seguido).
+   */
+  public FollowId getId() {
+    return id;
+  }
+
+  /**
+   * Retorna o usuário que segue.
+   * 
+   * @return seguidor.
+   */
+  public User getFollower() {
+    return follower;
+  }
+
+  /**
+   * Retorna o usuário seguido.
+   * 
+   * @return seguido.
+   */
+  public User getFollowed() {
+    return followed;
+  }
+
+  /**
+   * Retorna o timestamp de criação da relação.
+   * 
+   * @return instante da criação.
+   */
+  public Instant getCreationTimeStamp() {
+    return creationTimeStamp;
+  }
+}
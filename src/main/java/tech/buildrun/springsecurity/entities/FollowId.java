@@ -0,0 +1,83 @@
+package tech.buildrun.springsecurity.entities;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * Chave composta da entidade {@link Follow}.
+ * 
+ * Formada pelo par (seguidor, seguido). A ordem das colunas faz com que a chave
+ * primária sirva também como índice para "quem este usuário segue".
+ * 
+ * @author Emanuel
+ */
+@Embeddable
+public class FollowId implements Serializable {
+
+  /**
+   * ID do usuário que segue.
+   */
+  @Column(name = "follower_id")
+  private UUID followerId;
+
+  /**
+   * ID do usuário seguido.
+   */
+  @Column(name = "followed_id")
+  private UUID followedId;
+
+  /**
+   * Construtor padrão exigido pelo JPA.
+   */
+  public FollowId() {
+  }
+
+  /**
+   * Cria a chave para o par informado.
+   * 
+   * @param followerId ID do usuário que segue.
+   * @param followedId ID do usuário seguido.
+   */
+  public FollowId(UUID followerId, UUID followedId) {
+    this.followerId = followerId;
+    this.followedId = followedId;
+  }
+
+  /**
+   * Retorna o ID do usuário que segue.
+   * 
+   * @return ID do seguidor.
+   */
+  public UUID getFollowerId() {
+    return followerId;
+  }
+
+  /**
+   * Retorna o ID do usuário seguido.
+   * 
+   * @return ID do seguido.
+   */
+  public UUID getFollowedId() {
+    return followedId;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof FollowId other)) {
+      return false;
+    }
+    return Objects.equals(followerId, other.followerId) && Objects.equals(followedId, other.followedId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(followerId, followedId);
+  }
+}
@@ -14,17 +14,33 @@ import jakarta.persistence.*;
  * Contém informações sobre o conteúdo do tweet, seu autor (usuário) e o
  * timestamp de criação.
  * 
+ * O índice {@code idx_tweets_feed} cobre a ordenação do feed (data de criação
+ * e ID decrescentes), permitindo a paginação por cursor sem OFFSET.
+ * 
+ * A remoção é lógica: o tweet recebe {@code deletedAt} e deixa de aparecer nas
+ * consultas, e a linha é apagada depois pelo
+ * {@link tech.buildrun.springsecurity.service.TweetPurger}. O índice
+ * {@code idx_tweets_deleted} atende à busca do purger pelas linhas removidas.
+ * 
  * @author Emanuel
  */
 @Entity
-@Table(name = "tb_tweets")
+@Table(name = "tb_tweets", indexes = {
+    @Index(name = "idx_tweets_feed", columnList = "creation_time_stamp DESC, tweet_id DESC"),
+    @Index(name = "idx_tweets_deleted", columnList = "deleted_at") })
 public class Tweet {
 
   /**
    * Identificador único do Tweet, gerado automaticamente via sequência.
+   * 
+   * A sequência usa o otimizador pooled do Hibernate: cada ida ao banco reserva
+   * um bloco de {@code allocationSize} IDs, que são entregues em memória. No
+   * MySQL, que não tem sequências, a tabela {@code tweet_seq} emula a
+   * sequência.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.SEQUENCE)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tweet_seq")
+  @SequenceGenerator(name = "tweet_seq", sequenceName = "tweet_seq", allocationSize = 50)
   @Column(name = "tweet_id")
   private Long tweetId;
 
@@ -32,9 +48,10 @@ public class Tweet {
    * Usuário que criou o Tweet.
    * 
    * Relacionamento Many-to-One com a entidade {@link User}, representando o autor
-   * do tweet.
+   * do tweet. Carregado de forma lazy: o feed usa projeções e não precisa do
+   * usuário completo (com suas roles) para cada tweet.
    */
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   private User user;
 
@@ -49,6 +66,12 @@ public class Tweet {
   @CreationTimestamp
   private Instant creationTimeStamp;
 
+  /**
+   * Instante da remoção lógica do Tweet; null enquanto ativo.
+   */
+  @Column(name = "deleted_at")
+  private Instant deletedAt;
+
   /**
    * Define o identificador do Tweet.
    * 
@@ -120,4 +143,22 @@ public class Tweet {
   public Instant getCreationTimeStamp() {
     return creationTimeStamp;
   }
+
+  /**
+   * Define o instante da remoção lógica do Tweet.
+   * 
+   * @param deletedAt instante da remoção, ou null se ativo.
+   */
+  public void setDeletedAt(Instant deletedAt) {
+    this.deletedAt = deletedAt;
+  }
+
+  /**
+   * Retorna o instante da remoção lógica do Tweet.
+   * 
+   * @return instante da remoção, ou null se o Tweet está ativo.
+   */
+  public Instant getDeletedAt() {
+    return deletedAt;
+  }
 }
@@ -1,8 +1,10 @@
 package tech.buildrun.springsecurity.entities;
 
+import java.time.Instant;
 import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import jakarta.persistence.*;
@@ -19,7 +21,7 @@ import tech.buildrun.springsecurity.controller.dto.LoginRequest;
  * @author Emanuel
  */
 @Entity
-@Table(name = "tb_users")
+@Table(name = "tb_users", indexes = @Index(name = "idx_users_created", columnList = "created_at"))
 public class User {
 
   /**
@@ -50,6 +52,13 @@ public class User {
   @JoinTable(name = "tb_users_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
   private Set<Role> roles;
 
+  /**
+   * Timestamp do cadastro, gerado automaticamente pelo Hibernate.
+   */
+  @CreationTimestamp
+  @Column(name = "created_at")
+  private Instant createdAt;
+
   /**
    * Retorna o UUID único do usuário.
    * 
@@ -122,6 +131,24 @@ public class User {
     this.roles = roles;
   }
 
+  /**
+   * Retorna o timestamp do cadastro do usuário.
+   * 
+   * @return instante do cadastro, ou null para usuários anteriores à coluna.
+   */
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Define o timestamp do cadastro do usuário.
+   * 
+   * @param createdAt instante do cadastro.
+   */
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
   /**
    * Verifica se as credenciais de login fornecidas são válidas para este usuário.
    * 
@@ -0,0 +1,44 @@
+package tech.buildrun.springsecurity.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import tech.buildrun.springsecurity.entities.Follow;
+import tech.buildrun.springsecurity.entities.FollowId;
+
+/**
+ * Repositório Spring Data JPA para a entidade {@link Follow}.
+ * 
+ * Além do CRUD padrão, expõe consultas que retornam apenas IDs de usuários,
+ * usadas na montagem das timelines sem carregar entidades.
+ * 
+ * @author Emanuel
+ */
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, FollowId> {
+
+  /**
+   * Retorna os IDs dos seguidores de um usuário.
+   * 
+   * @param followedId ID do usuário seguido.
+   * @param limit      quantidade máxima de IDs retornados.
+   * @return lista de IDs dos seguidores.
+   */
+  @Query("select f.id.followerId from Follow f where f.id.followedId = :followedId")
+  List<UUID> findFollowerIds(@Param("followedId") UUID followedId, Limit limit);
+
+  /**
+   * Retorna os IDs dos usuários seguidos por um usuário.
+   * 
+   * @param followerId ID do seguidor.
+   * @return lista de IDs dos usuários seguidos.
+   */
+  @Query("select f.id.followedId from Follow f where f.id.followerId = :followerId")
+  List<UUID> findFollowedIds(@Param("followerId") UUID followerId);
+}
@@ -1,8 +1,21 @@
 package tech.buildrun.springsecurity.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.controller.dto.TweetTextDto;
 import tech.buildrun.springsecurity.entities.Tweet;
 
 /**
@@ -15,8 +28,238 @@ import tech.buildrun.springsecurity.entities.Tweet;
  * abstraindo as operações de banco de dados e facilitando consultas e
  * modificações.
  * 
+ * As consultas próprias ignoram os tweets removidos logicamente
+ * ({@code deletedAt} preenchido), que continuam na tabela até o purge.
+ * 
  * @author Emanuel
  */
 @Repository
 public interface TweetRepository extends JpaRepository<Tweet, Long> {
+
+  /**
+   * Retorna uma página do feed já projetada em {@link FeedItemDto}, ordenada por
+   * data de criação e ID decrescentes.
+   * 
+   * A projeção busca apenas as colunas exibidas no feed com um único join em
+   * {@code tb_users}, sem hidratar as entidades {@link Tweet} e
+   * {@link tech.buildrun.springsecurity.entities.User} (e, portanto, sem carregar
+   * roles nem hashes de senha).
+   * 
+   * Não executa consulta de contagem; o total de tweets vem do
+   * {@link tech.buildrun.springsecurity.service.TweetCounter}.
+   * 
+   * @param pageable página solicitada; a ordenação é definida pela consulta.
+   * @return itens da página do feed.
+   */
+  @Query(value = """
+      select new tech.buildrun.springsecurity.controller.dto.FeedItemDto(
+        t.tweetId, t.content, u.username, t.creationTimeStamp)
+      from Tweet t join t.user u
+      where t.deletedAt is null
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<FeedItemDto> findFeed(Pageable pageable);
+
+  /**
+   * Retorna os itens mais recentes do feed, ordenados por data de criação e ID
+   * decrescentes.
+   * 
+   * Usado como primeira página do modo cursor; não executa consulta de contagem.
+   * 
+   * @param limit quantidade máxima de itens retornados.
+   * @return lista de itens mais recentes.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.FeedItemDto(
+        t.tweetId, t.content, u.username, t.creationTimeStamp)
+      from Tweet t join t.user u
+      where t.deletedAt is null
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<FeedItemDto> findFeedFirstPage(Limit limit);
+
+  /**
+   * Retorna os itens do feed estritamente anteriores à posição
+   * (creationTimeStamp, tweetId) informada, na mesma ordenação do feed.
+   * 
+   * A condição é resolvida como uma varredura de intervalo no índice
+   * {@code idx_tweets_feed}, sem OFFSET e sem consulta de contagem.
+   * 
+   * @param creationTimeStamp instante de criação do último tweet já entregue.
+   * @param tweetId           ID do último tweet já entregue.
+   * @param limit             quantidade máxima de itens retornados.
+   * @return lista de itens seguintes ao cursor.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.FeedItemDto(
+        t.tweetId, t.content, u.username, t.creationTimeStamp)
+      from Tweet t join t.user u
+      where t.deletedAt is null
+        and (t.creationTimeStamp < :creationTimeStamp
+         or (t.creationTimeStamp = :creationTimeStamp and t.tweetId < :tweetId))
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<FeedItemDto> findFeedAfter(@Param("creationTimeStamp") Instant creationTimeStamp, @Param("tweetId") Long tweetId,
+      Limit limit);
+
+  /**
+   * Retorna os itens do feed para os IDs informados, com um único join em
+   * {@code tb_users} resolvido pela chave primária.
+   * 
+   * IDs inexistentes ou removidos são simplesmente ignorados.
+   * 
+   * @param tweetIds IDs dos tweets desejados.
+   * @return itens do feed encontrados, ordenados como o feed.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.FeedItemDto(
+        t.tweetId, t.content, u.username, t.creationTimeStamp)
+      from Tweet t join t.user u
+      where t.tweetId in :tweetIds and t.deletedAt is null
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<FeedItemDto> findFeedItemsByIds(@Param("tweetIds") Collection<Long> tweetIds);
+
+  /**
+   * Retorna os itens mais recentes publicados pelos autores informados.
+   * 
+   * Usado no caminho fan-out-on-read da timeline, para autores com muitos
+   * seguidores cujos tweets não são distribuídos na escrita.
+   * 
+   * @param authorIds IDs dos autores.
+   * @param limit     quantidade máxima de itens retornados.
+   * @return itens do feed dos autores, do mais recente ao mais antigo.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.FeedItemDto(
+        t.tweetId, t.content, u.username, t.creationTimeStamp)
+      from Tweet t join t.user u
+      where u.userId in :authorIds and t.deletedAt is null
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<FeedItemDto> findFeedItemsByAuthors(@Param("authorIds") Collection<UUID> authorIds, Limit limit);
+
+  /**
+   * Retorna os IDs dos tweets que compõem a timeline de um usuário: os seus
+   * próprios e os de quem ele segue, do mais recente ao mais antigo.
+   * 
+   * Usado apenas para materializar a timeline em memória na primeira leitura;
+   * as leituras seguintes não tocam o grafo de seguidores.
+   * 
+   * @param userId ID do dono da timeline.
+   * @param limit  quantidade máxima de IDs retornados.
+   * @return IDs dos tweets da timeline.
+   */
+  @Query("""
+      select t.tweetId from Tweet t
+      where t.deletedAt is null
+        and (t.user.userId = :userId
+         or t.user.userId in (select f.id.followedId from Follow f where f.id.followerId = :userId))
+      order by t.creationTimeStamp desc, t.tweetId desc
+      """)
+  List<Long> findTimelineIds(@Param("userId") UUID userId, Limit limit);
+
+  /**
+   * Retorna um bloco de tweets com ID maior que o informado, em ordem de ID,
+   * apenas com o texto. Usado para construir o índice de busca.
+   * 
+   * @param afterId maior ID já lido.
+   * @param limit   quantidade máxima de tweets do bloco.
+   * @return IDs e conteúdos do bloco.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.TweetTextDto(t.tweetId, t.content)
+      from Tweet t
+      where t.tweetId > :afterId and t.deletedAt is null
+      order by t.tweetId
+      """)
+  List<TweetTextDto> findTweetTextsAfter(@Param("afterId") Long afterId, Limit limit);
+
+  /**
+   * Retorna os tweets informados, apenas com o texto. Usado para completar o
+   * índice de busca.
+   * 
+   * @param tweetIds IDs dos tweets.
+   * @return IDs e conteúdos dos tweets não removidos.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.TweetTextDto(t.tweetId, t.content)
+      from Tweet t
+      where t.tweetId in :tweetIds and t.deletedAt is null
+      """)
+  List<TweetTextDto> findTweetTextsByIds(@Param("tweetIds") Collection<Long> tweetIds);
+
+  /**
+   * Retorna os IDs dos tweets não removidos no intervalo
+   * {@code (afterId, upToId]}, em ordem de ID. Usado para conferir o índice de
+   * busca carregado do segmento.
+   * 
+   * @param afterId limite inferior, exclusivo.
+   * @param upToId  limite superior, inclusivo.
+   * @return IDs do intervalo.
+   */
+  @Query("""
+      select t.tweetId from Tweet t
+      where t.tweetId > :afterId and t.tweetId <= :upToId and t.deletedAt is null
+      order by t.tweetId
+      """)
+  List<Long> findActiveIdsBetween(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+  /**
+   * Conta os tweets ativos, sem os removidos logicamente.
+   * 
+   * @return quantidade de tweets ativos.
+   */
+  @Query("select count(t) from Tweet t where t.deletedAt is null")
+  long countActive();
+
+  /**
+   * Remove logicamente um tweet, num único statement, se o solicitante for o
+   * autor ou administrador.
+   * 
+   * @param tweetId     ID do tweet.
+   * @param requesterId ID do usuário que solicita a remoção.
+   * @param admin       indica se o solicitante tem a role ADMIN.
+   * @param deletedAt   instante da remoção.
+   * @return 1 se o tweet foi removido, ou 0 se não existe, já foi removido ou
+   *         pertence a outro usuário.
+   */
+  @Modifying
+  @Transactional
+  @Query("""
+      update Tweet t set t.deletedAt = :deletedAt
+      where t.tweetId = :tweetId and t.deletedAt is null
+        and (:admin = true or t.user.userId = :requesterId)
+      """)
+  int softDelete(@Param("tweetId") Long tweetId, @Param("requesterId") UUID requesterId,
+      @Param("admin") boolean admin, @Param("deletedAt") Instant deletedAt);
+
+  /**
+   * Verifica se um tweet existe e não foi removido.
+   * 
+   * @param tweetId ID do tweet.
+   * @return true se o tweet está ativo.
+   */
+  boolean existsByTweetIdAndDeletedAtIsNull(Long tweetId);
+
+  /**
+   * Retorna os IDs dos tweets removidos logicamente antes do instante
+   * informado, dos mais antigos aos mais recentes.
+   * 
+   * @param cutoff instante limite da remoção.
+   * @param limit  quantidade máxima de IDs retornados.
+   * @return IDs dos tweets a apagar.
+   */
+  @Query("select t.tweetId from Tweet t where t.deletedAt < :cutoff order by t.deletedAt")
+  List<Long> findPurgeableIds(@Param("cutoff") Instant cutoff, Limit limit);
+
+  /**
+   * Apaga fisicamente os tweets informados que estejam removidos logicamente.
+   * 
+   * @param tweetIds IDs dos tweets.
+   * @return quantidade de linhas apagadas.
+   */
+  @Modifying
+  @Query("delete from Tweet t where t.tweetId in :tweetIds and t.deletedAt is not null")
+  int purge(@Param("tweetIds") Collection<Long> tweetIds);
 }
@@ -1,11 +1,19 @@
 package tech.buildrun.springsecurity.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import tech.buildrun.springsecurity.controller.dto.UserItemDto;
+import tech.buildrun.springsecurity.controller.dto.UserRoleDto;
 import tech.buildrun.springsecurity.entities.User;
 
 /**
@@ -29,4 +37,75 @@ public interface UserRepository extends JpaRepository<User, UUID> {
    *         contrário.
    */
   Optional<User> findByUsername(String username);
+
+  /**
+   * Retorna um bloco da listagem de usuários em ordem de ID, a partir de um
+   * cursor (keyset), já projetado em {@link UserItemDto} sem roles nem hash de
+   * senha.
+   * 
+   * Os filtros nulos são ignorados. No prefixo, {@code %}, {@code _} e o
+   * próprio {@code !} devem vir escapados com {@code !}.
+   * 
+   * @param after    ID do último usuário já entregue, ou null para o início.
+   * @param username prefixo do nome de usuário, já escapado, ou null.
+   * @param role     nome de uma role que o usuário deve ter, ou null.
+   * @param limit    quantidade máxima de usuários do bloco.
+   * @return usuários do bloco, sem as roles preenchidas.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.UserItemDto(u.userId, u.username)
+      from User u
+      where (:after is null or u.userId > :after)
+        and (:username is null or u.username like concat(:username, '%') escape '!')
+        and (:role is null or exists (
+          select 1 from u.roles r where lower(r.name) = lower(:role)))
+      order by u.userId
+      """)
+  List<UserItemDto> findUserItems(@Param("after") UUID after, @Param("username") String username,
+      @Param("role") String role, Limit limit);
+
+  /**
+   * Retorna os nomes das roles de um conjunto de usuários.
+   * 
+   * @param userIds IDs dos usuários.
+   * @return pares (ID do usuário, nome da role).
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.UserRoleDto(u.userId, r.name)
+      from User u join u.roles r
+      where u.userId in :userIds
+      """)
+  List<UserRoleDto> findRoleNames(@Param("userIds") Collection<UUID> userIds);
+
+  /**
+   * Retorna ID e nome dos usuários com os usernames informados, sem roles nem
+   * hash de senha.
+   * 
+   * @param usernames usernames procurados.
+   * @return usuários encontrados; usernames inexistentes são ignorados.
+   */
+  @Query("""
+      select new tech.buildrun.springsecurity.controller.dto.UserItemDto(u.userId, u.username)
+      from User u
+      where u.username in :usernames
+      """)
+  List<UserItemDto> findUserItemsByUsernames(@Param("usernames") Collection<String> usernames);
+
+  /**
+   * Retorna apenas o username de um usuário.
+   * 
+   * @param userId ID do usuário.
+   * @return username, ou vazio se o usuário não existe.
+   */
+  @Query("select u.username from User u where u.userId = :userId")
+  Optional<String> findUsernameById(@Param("userId") UUID userId);
+
+  /**
+   * Retorna os usernames cadastrados a partir de um instante.
+   * 
+   * @param since instante inicial, inclusive.
+   * @return usernames dos usuários cadastrados desde {@code since}.
+   */
+  @Query("select u.username from User u where u.createdAt >= :since")
+  List<String> findUsernamesCreatedSince(@Param("since") Instant since);
 }
@@ -0,0 +1,156 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom de tamanho fixo para strings.
+ *
+ * {@link #mightContain(String)} nunca responde false para um valor inserido;
+ * pode responder true para um valor nunca inserido, com probabilidade próxima
+ * da taxa de falsos positivos configurada enquanto a quantidade de inserções
+ * não passar da esperada.
+ *
+ * Os bits ficam num {@link AtomicLongArray}: inserções e consultas
+ * concorrentes não usam locks.
+ *
+ * @author Emanuel
+ */
+public class BloomFilter {
+
+  /**
+   * Bits do filtro.
+   */
+  private final AtomicLongArray words;
+
+  /**
+   * Quantidade de bits.
+   */
+  private final long bitCount;
+
+  /**
+   * Quantidade de funções de hash.
+   */
+  private final int hashCount;
+
+  /**
+   * Quantidade de inserções esperada no dimensionamento.
+   */
+  private final long expectedInsertions;
+
+  /**
+   * Quantidade de inserções feitas.
+   */
+  private final LongAdder insertions = new LongAdder();
+
+  /**
+   * Cria um filtro vazio dimensionado para a quantidade de inserções e a taxa
+   * de falsos positivos desejadas.
+   *
+   * @param expectedInsertions quantidade de valores esperada.
+   * @param fpp                taxa de falsos positivos desejada, entre 0 e 1.
+   */
+  public BloomFilter(long expectedInsertions, double fpp) {
+    if (expectedInsertions < 1 || fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("invalid bloom filter sizing: " + expectedInsertions + ", " + fpp);
+    }
+    var bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    var words = Math.max(1, (bits + 63) / 64);
+    if (words > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("bloom filter too large: " + bits + " bits");
+    }
+    this.words = new AtomicLongArray((int) words);
+    this.bitCount = words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    this.expectedInsertions = expectedInsertions;
+  }
+
+  /**
+   * Insere um valor.
+   *
+   * @param value valor a inserir.
+   */
+  public void put(String value) {
+    var hash = StringHash.hash64(value);
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      var bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      var word = (int) (bit >>> 6);
+      var mask = 1L << bit;
+      var current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+    insertions.increment();
+  }
+
+  /**
+   * Verifica se um valor pode ter sido inserido.
+   *
+   * @param value valor procurado.
+   * @return false se o valor certamente não foi inserido.
+   */
+  public boolean mightContain(String value) {
+    var hash = StringHash.hash64(value);
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      var bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Retorna a quantidade de bits do filtro.
+   *
+   * @return tamanho do filtro em bits.
+   */
+  public long bitCount() {
+    return bitCount;
+  }
+
+  /**
+   * Retorna a quantidade de funções de hash.
+   *
+   * @return bits testados por valor.
+   */
+  public int hashCount() {
+    return hashCount;
+  }
+
+  /**
+   * Retorna a quantidade de inserções esperada no dimensionamento.
+   *
+   * @return capacidade nominal do filtro.
+   */
+  public long expectedInsertions() {
+    return expectedInsertions;
+  }
+
+  /**
+   * Retorna a quantidade de inserções feitas, contando repetições.
+   *
+   * @return inserções feitas.
+   */
+  public long insertions() {
+    return insertions.sum();
+  }
+
+  /**
+   * Estima a taxa atual de falsos positivos a partir da fração de bits ligados.
+   *
+   * @return probabilidade estimada de um valor nunca inserido ser aceito.
+   */
+  public double expectedFpp() {
+    var set = 0L;
+    for (int i = 0; i < words.length(); i++) {
+      set += Long.bitCount(words.get(i));
+    }
+    return Math.pow((double) set / bitCount, hashCount);
+  }
+}
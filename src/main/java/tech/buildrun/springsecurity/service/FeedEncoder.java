@@ -0,0 +1,215 @@
+package tech.buildrun.springsecurity.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.buildrun.springsecurity.controller.dto.FeedDto;
+
+/**
+ * Codificação das páginas do {@code /feed} no formato negociado pelo
+ * {@code Accept}: JSON, CBOR ou Smile.
+ *
+ * Os formatos binários usam a mesma configuração Jackson do JSON e produzem os
+ * mesmos campos, com payloads menores e codificação mais barata para clientes
+ * móveis.
+ *
+ * As páginas mais requisitadas (as primeiras {@code feed.hot-pages.pages}
+ * páginas, nos tamanhos de {@code feed.hot-pages.page-sizes}) ficam guardadas
+ * já codificadas, associadas ao ETag da {@link FeedVersion}: enquanto o feed
+ * não muda, são servidas sem consulta nem serialização. Sem ETag (logo após
+ * uma mudança), nada é guardado.
+ *
+ * @author Emanuel
+ */
+@Component
+public class FeedEncoder implements MeterBinder {
+
+  /**
+   * Formatos suportados, na ordem de preferência para {@code Accept} genéricos.
+   */
+  public enum Format {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.parseMediaType("application/cbor")),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    Format(MediaType mediaType) {
+      this.mediaType = mediaType;
+    }
+
+    /**
+     * Retorna o Content-Type do formato.
+     *
+     * @return media type do formato.
+     */
+    public MediaType mediaType() {
+      return mediaType;
+    }
+  }
+
+  /**
+   * Identifica uma página guardada.
+   */
+  private record Key(Format format, int page, int pageSize) {
+  }
+
+  /**
+   * Página codificada e o ETag do feed em que foi lida.
+   */
+  private record Encoded(String etag, byte[] bytes) {
+  }
+
+  /**
+   * Serializadores de cada formato.
+   */
+  private final Map<Format, ObjectMapper> mappers;
+
+  /**
+   * Quantidade de páginas iniciais guardadas.
+   */
+  private final int hotPages;
+
+  /**
+   * Tamanhos de página guardados.
+   */
+  private final Set<Integer> hotPageSizes;
+
+  /**
+   * Páginas guardadas; no máximo uma por formato, página e tamanho.
+   */
+  private final Map<Key, Encoded> encoded = new ConcurrentHashMap<>();
+
+  /**
+   * Páginas servidas já codificadas.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * Páginas quentes lidas e codificadas de novo.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Construtor que cria os serializadores a partir da configuração Jackson da
+   * aplicação.
+   *
+   * @param objectMapper        serializador JSON da aplicação.
+   * @param objectMapperBuilder builder com a configuração Jackson do Spring
+   *                            Boot.
+   * @param hotPages            quantidade de páginas iniciais guardadas.
+   * @param hotPageSizes        tamanhos de página guardados.
+   */
+  public FeedEncoder(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder,
+      @Value("${feed.hot-pages.pages:3}") int hotPages,
+      @Value("${feed.hot-pages.page-sizes:10,20}") List<Integer> hotPageSizes) {
+    this.mappers = Map.of(
+        Format.JSON, objectMapper,
+        Format.CBOR, objectMapperBuilder.factory(new CBORFactory()).build(),
+        Format.SMILE, objectMapperBuilder.factory(new SmileFactory()).build());
+    this.hotPages = hotPages;
+    this.hotPageSizes = Set.copyOf(hotPageSizes);
+  }
+
+  /**
+   * Escolhe o formato da resposta a partir do {@code Accept}.
+   *
+   * @param accept tipos aceitos pelo cliente; vazio aceita qualquer um.
+   * @return o formato preferido, ou null se nenhum for aceito.
+   */
+  public static Format negotiate(List<MediaType> accept) {
+    if (accept.isEmpty()) {
+      return Format.JSON;
+    }
+    var sorted = new ArrayList<>(accept);
+    MimeTypeUtils.sortBySpecificity(sorted);
+    for (var acceptable : sorted) {
+      if (acceptable.getQualityValue() == 0) {
+        continue;
+      }
+      for (var format : Format.values()) {
+        if (acceptable.isCompatibleWith(format.mediaType)) {
+          return format;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Codifica uma página do feed, reaproveitando a versão já codificada das
+   * páginas quentes.
+   *
+   * @param format   formato da resposta.
+   * @param etag     ETag atual da página, ou null se o feed acabou de mudar.
+   * @param page     número da página.
+   * @param pageSize tamanho da página.
+   * @param loader   leitura da página, chamada apenas se necessário.
+   * @return a página codificada.
+   */
+  public byte[] encode(Format format, String etag, int page, int pageSize, Supplier<FeedDto> loader) {
+    if (etag == null || page >= hotPages || !hotPageSizes.contains(pageSize)) {
+      return encode(format, loader.get());
+    }
+    var key = new Key(format, page, pageSize);
+    var current = encoded.get(key);
+    if (current != null && current.etag().equals(etag)) {
+      hits.increment();
+      return current.bytes();
+    }
+    misses.increment();
+    var bytes = encode(format, loader.get());
+    encoded.put(key, new Encoded(etag, bytes));
+    return bytes;
+  }
+
+  /**
+   * Serializa uma página no formato informado.
+   *
+   * @param format formato da resposta.
+   * @param feed   página do feed.
+   * @return bytes da página.
+   */
+  public byte[] encode(Format format, FeedDto feed) {
+    try {
+      return mappers.get(format).writeValueAsBytes(feed);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Publica os acertos e as falhas das páginas quentes no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("feed.hot.pages", hits, LongAdder::sum).tag("result", "hit")
+        .description("Hot /feed pages served pre-encoded or re-encoded")
+        .register(registry);
+    FunctionCounter.builder("feed.hot.pages", misses, LongAdder::sum).tag("result", "miss")
+        .description("Hot /feed pages served pre-encoded or re-encoded")
+        .register(registry);
+  }
+}
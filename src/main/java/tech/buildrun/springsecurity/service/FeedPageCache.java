@@ -0,0 +1,235 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.buildrun.springsecurity.controller.dto.FeedDto;
+
+/**
+ * Cache em memória das primeiras páginas do {@code /feed}, já montadas como
+ * {@link FeedDto}, por página e tamanho.
+ *
+ * Cada entrada guarda a {@link FeedVersion} e o total de tweets em que foi
+ * lida: a criação, a remoção e a importação de tweets incrementam a versão
+ * depois do commit, invalidando todas as páginas de uma vez, e uma
+ * reconciliação do {@link TweetCounter} invalida as páginas com o total
+ * antigo. Uma entrada lida antes de a última mudança se estabilizar (réplicas
+ * atrasadas, write-behind) expira quando ela se estabiliza, de modo que o
+ * conteúdo desatualizado dura no máximo {@code feed.etag.settle-window}.
+ *
+ * As leituras são single-flight: numa falha com requisições concorrentes, uma
+ * única consulta ao banco é feita e as demais aguardam o seu resultado. Por
+ * isso o cache deve ser consultado fora de transação, com a transação apenas
+ * dentro do {@code loader}: quem aguarda não segura conexão do pool.
+ *
+ * O cache só guarda as primeiras {@code feed.page-cache.pages} páginas de até
+ * {@code feed.page-cache.max-page-size} tweets, com no máximo
+ * {@code feed.page-cache.max-entries} entradas.
+ *
+ * @author Emanuel
+ */
+@Component
+public class FeedPageCache implements MeterBinder {
+
+  /**
+   * Identifica uma página.
+   */
+  private record Key(int page, int pageSize) {
+  }
+
+  /**
+   * Página lida ou em leitura.
+   *
+   * @param version    versão do feed no início da leitura.
+   * @param total      total de tweets da página.
+   * @param expiresAt  instante ({@link System#nanoTime()}) em que a entrada
+   *                   expira, se {@code expiring}.
+   * @param expiring   indica uma entrada lida antes da estabilização.
+   * @param page       resultado da leitura.
+   */
+  private record Entry(long version, long total, long expiresAt, boolean expiring, CompletableFuture<FeedDto> page) {
+
+    private boolean isValid(long currentVersion, long currentTotal, long now) {
+      return version == currentVersion && total == currentTotal && (!expiring || now - expiresAt < 0);
+    }
+  }
+
+  /**
+   * Versão do feed, que invalida as entradas.
+   */
+  private final FeedVersion feedVersion;
+
+  /**
+   * Quantidade de páginas iniciais guardadas.
+   */
+  private final int pages;
+
+  /**
+   * Maior tamanho de página guardado.
+   */
+  private final int maxPageSize;
+
+  /**
+   * Quantidade máxima de entradas.
+   */
+  private final int maxEntries;
+
+  /**
+   * Páginas guardadas.
+   */
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Leituras servidas pelo cache, inclusive as que aguardaram outra leitura.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * Leituras que consultaram o banco.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Leituras que aguardaram a consulta de outra requisição.
+   */
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Tempo total das consultas ao banco, em nanossegundos.
+   */
+  private final LongAdder loadNanos = new LongAdder();
+
+  /**
+   * Construtor com as propriedades do cache.
+   *
+   * @param feedVersion versão do feed.
+   * @param pages       quantidade de páginas iniciais guardadas.
+   * @param maxPageSize maior tamanho de página guardado.
+   * @param maxEntries  quantidade máxima de entradas.
+   */
+  public FeedPageCache(FeedVersion feedVersion,
+      @Value("${feed.page-cache.pages:3}") int pages,
+      @Value("${feed.page-cache.max-page-size:50}") int maxPageSize,
+      @Value("${feed.page-cache.max-entries:64}") int maxEntries) {
+    this.feedVersion = feedVersion;
+    this.pages = pages;
+    this.maxPageSize = maxPageSize;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Retorna uma página do feed, do cache ou do banco.
+   *
+   * @param page     número da página.
+   * @param pageSize tamanho da página.
+   * @param total    total de tweets atual, exibido na página.
+   * @param loader   leitura da página no banco, chamada apenas numa falha.
+   * @return a página do feed.
+   */
+  public FeedDto get(int page, int pageSize, long total, Supplier<FeedDto> loader) {
+    var key = new Key(page, pageSize);
+    if (page >= pages || pageSize > maxPageSize || (entries.size() >= maxEntries && !entries.containsKey(key))) {
+      return loader.get();
+    }
+
+    // Versão lida antes do instante de estabilização: se a versão lida já é a
+    // de uma mudança concorrente, o instante também é o dessa mudança
+    var version = feedVersion.get();
+    var settledAt = feedVersion.settledAt();
+    var now = System.nanoTime();
+
+    var current = entries.get(key);
+    if (current != null && current.isValid(version, total, now)) {
+      return hit(current);
+    }
+
+    var created = new Entry(version, total, settledAt, now - settledAt < 0, new CompletableFuture<>());
+    var winner = entries.compute(key,
+        (k, existing) -> existing != null && existing.isValid(version, total, now) ? existing : created);
+    if (winner != created) {
+      return hit(winner);
+    }
+
+    misses.increment();
+    var start = System.nanoTime();
+    try {
+      var result = loader.get();
+      created.page().complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      entries.remove(key, created);
+      created.page().completeExceptionally(e);
+      throw e;
+    } finally {
+      loadNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Retorna a página de uma entrada, aguardando a leitura em andamento.
+   */
+  private FeedDto hit(Entry entry) {
+    hits.increment();
+    if (!entry.page().isDone()) {
+      coalesced.increment();
+    }
+    try {
+      return entry.page().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Publica acertos, falhas, taxa de acerto e tempo de leitura no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("feed.page.cache.requests", hits, LongAdder::sum).tag("result", "hit")
+        .description("Cacheable /feed page reads by outcome")
+        .register(registry);
+    FunctionCounter.builder("feed.page.cache.requests", misses, LongAdder::sum).tag("result", "miss")
+        .description("Cacheable /feed page reads by outcome")
+        .register(registry);
+    FunctionCounter.builder("feed.page.cache.coalesced", coalesced, LongAdder::sum)
+        .description("Page reads that waited for a concurrent load instead of querying")
+        .register(registry);
+    Gauge.builder("feed.page.cache.hit.ratio", this, FeedPageCache::hitRatio)
+        .description("Fraction of cacheable /feed page reads served from memory")
+        .register(registry);
+    Gauge.builder("feed.page.cache.entries", entries, Map::size)
+        .description("Cached /feed pages")
+        .register(registry);
+    FunctionTimer.builder("feed.page.cache.load", misses, LongAdder::sum, adder -> loadNanos.sum(),
+        TimeUnit.NANOSECONDS)
+        .description("Database loads of cacheable /feed pages")
+        .register(registry);
+  }
+
+  /**
+   * Fração das leituras servidas pelo cache.
+   */
+  private double hitRatio() {
+    var hit = hits.sum();
+    var total = hit + misses.sum();
+    return total == 0 ? 0 : (double) hit / total;
+  }
+}
@@ -0,0 +1,661 @@
+package tech.buildrun.springsecurity.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.repository.UserRepository;
+
+/**
+ * Feed ao vivo por Server-Sent Events ({@code GET /feed/stream}).
+ *
+ * Cada tweet publicado vira um evento {@code tweet} com o {@link FeedItemDto},
+ * serializado uma única vez e guardado num ring buffer dos últimos
+ * {@code feed.stream.ring-size} eventos, de onde é copiado para a fila de cada
+ * assinante. O ID do evento é a sequência no ring buffer: um cliente que
+ * reconecta com {@code Last-Event-ID} recebe os eventos perdidos que ainda
+ * estão no buffer; se algum já saiu (ou a sequência é de outra instância), ele
+ * recebe antes um evento {@code reset}, indicando que deve recarregar o
+ * {@code /feed}.
+ *
+ * As conexões ociosas não ocupam threads: o {@link SseEmitter} usa o modo
+ * assíncrono do servlet, e as filas são esvaziadas por um pool pequeno de
+ * {@code feed.stream.sender-threads}, uma tarefa por assinante com eventos
+ * pendentes. A fila de cada assinante tem no máximo
+ * {@code feed.stream.subscriber-buffer} eventos; um cliente lento que a enche
+ * perde os eventos mais antigos ({@link Overflow#DROP_OLDEST}) ou é
+ * desconectado ({@link Overflow#DISCONNECT}), sem atrasar os demais.
+ *
+ * O envio é I/O bloqueante do servlet: um cliente que para de ler prende a
+ * thread de envio até o timeout de escrita do Tomcat
+ * ({@code server.tomcat.connection-timeout}). Para que poucos clientes parados
+ * não segurem todas as threads, um envio em andamento há mais de
+ * {@code feed.stream.send-timeout} desconecta o assinante e o pool ganha uma
+ * thread no lugar da presa, devolvida quando o envio termina, até
+ * {@code feed.stream.max-stalled-senders} threads extras.
+ *
+ * A publicação não bloqueia quem cria o tweet: o username do autor é resolvido
+ * (e mantido em cache) pela thread de distribuição.
+ *
+ * @author Emanuel
+ */
+@Service
+public class FeedStreamService implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(FeedStreamService.class);
+
+  /**
+   * Quantidade de usernames em cache a partir da qual o cache é esvaziado.
+   */
+  private static final int USERNAME_CACHE_LIMIT = 100_000;
+
+  /**
+   * Comportamento quando a fila de um assinante está cheia.
+   */
+  public enum Overflow {
+    /**
+     * Descarta o evento mais antigo da fila.
+     */
+    DROP_OLDEST,
+    /**
+     * Encerra a conexão; o cliente reconecta com {@code Last-Event-ID}.
+     */
+    DISCONNECT
+  }
+
+  /**
+   * Evento já serializado.
+   *
+   * @param frame evento SSE pronto para envio.
+   */
+  private record Event(Set<DataWithMediaType> frame) {
+  }
+
+  /**
+   * Comentário SSE enviado periodicamente para manter as conexões abertas em
+   * proxies.
+   */
+  private static final Event HEARTBEAT = new Event(SseEmitter.event().comment("keep-alive").build());
+
+  /**
+   * Aviso de eventos perdidos: o cliente deve recarregar o feed.
+   */
+  private static final Event RESET = new Event(SseEmitter.event().name("reset").data("").build());
+
+  /**
+   * Repositório de usuários, para resolver o username dos autores.
+   */
+  private final UserRepository userRepository;
+
+  /**
+   * Serializador JSON da aplicação.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Últimos eventos publicados, indexados pela sequência.
+   */
+  private final Event[] ring;
+
+  /**
+   * Sequência do último evento publicado; guardada por {@code ring}.
+   */
+  private long lastSequence;
+
+  /**
+   * Assinantes conectados.
+   */
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Usernames dos autores, por ID.
+   */
+  private final Map<UUID, String> usernames = new ConcurrentHashMap<>();
+
+  /**
+   * Capacidade da fila de cada assinante.
+   */
+  private final int subscriberBuffer;
+
+  /**
+   * Comportamento quando a fila de um assinante está cheia.
+   */
+  private final Overflow overflow;
+
+  /**
+   * Quantidade máxima de assinantes conectados.
+   */
+  private final int maxSubscribers;
+
+  /**
+   * Quantidade máxima de publicações aguardando distribuição.
+   */
+  private final int dispatchCapacity;
+
+  /**
+   * Duração máxima de uma conexão, em milissegundos.
+   */
+  private final long timeoutMillis;
+
+  /**
+   * Duração máxima de um envio, em nanossegundos, a partir da qual o
+   * assinante é desconectado.
+   */
+  private final long sendTimeoutNanos;
+
+  /**
+   * Threads de envio configuradas, sem as extras.
+   */
+  private final int senderThreads;
+
+  /**
+   * Quantidade máxima de threads extras no lugar das presas em envios.
+   */
+  private final int maxStalledSenders;
+
+  /**
+   * Thread que resolve os autores e distribui os eventos, na ordem de
+   * publicação.
+   */
+  private final ExecutorService dispatcher;
+
+  /**
+   * Pool que esvazia as filas dos assinantes; cresce enquanto há threads
+   * presas em envios.
+   */
+  private final ThreadPoolExecutor senders;
+
+  /**
+   * Publicações aguardando distribuição.
+   */
+  private final AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * Eventos distribuídos.
+   */
+  private final LongAdder published = new LongAdder();
+
+  /**
+   * Publicações descartadas por falta de espaço na distribuição.
+   */
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Eventos descartados de filas cheias.
+   */
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * Assinantes desconectados por fila cheia.
+   */
+  private final LongAdder overflowDisconnects = new LongAdder();
+
+  /**
+   * Assinantes desconectados por envio parado.
+   */
+  private final LongAdder stalledDisconnects = new LongAdder();
+
+  /**
+   * Construtor com injeção das dependências e das propriedades do stream.
+   *
+   * @param userRepository    repositório de usuários.
+   * @param objectMapper      serializador JSON.
+   * @param ringSize          quantidade de eventos guardados para reconexões.
+   * @param subscriberBuffer  capacidade da fila de cada assinante.
+   * @param overflow          comportamento quando a fila está cheia.
+   * @param maxSubscribers    quantidade máxima de assinantes.
+   * @param senderThreads     threads que enviam os eventos.
+   * @param dispatchCapacity  publicações aguardando distribuição.
+   * @param timeout           duração máxima de uma conexão.
+   * @param sendTimeout       duração máxima de um envio.
+   * @param maxStalledSenders threads extras no lugar das presas em envios.
+   */
+  public FeedStreamService(UserRepository userRepository, ObjectMapper objectMapper,
+      @Value("${feed.stream.ring-size:1024}") int ringSize,
+      @Value("${feed.stream.subscriber-buffer:64}") int subscriberBuffer,
+      @Value("${feed.stream.overflow:DROP_OLDEST}") Overflow overflow,
+      @Value("${feed.stream.max-subscribers:50000}") int maxSubscribers,
+      @Value("${feed.stream.sender-threads:4}") int senderThreads,
+      @Value("${feed.stream.dispatch-capacity:10000}") int dispatchCapacity,
+      @Value("${feed.stream.timeout:30m}") Duration timeout,
+      @Value("${feed.stream.send-timeout:5s}") Duration sendTimeout,
+      @Value("${feed.stream.max-stalled-senders:64}") int maxStalledSenders) {
+    this.userRepository = userRepository;
+    this.objectMapper = objectMapper;
+    this.ring = new Event[ringSize];
+    this.subscriberBuffer = subscriberBuffer;
+    this.overflow = overflow;
+    this.maxSubscribers = maxSubscribers;
+    this.dispatchCapacity = dispatchCapacity;
+    this.timeoutMillis = timeout.toMillis();
+    this.sendTimeoutNanos = sendTimeout.toNanos();
+    this.senderThreads = senderThreads;
+    this.maxStalledSenders = maxStalledSenders;
+    this.dispatcher = Executors.newSingleThreadExecutor(
+        runnable -> Thread.ofPlatform().name("feed-stream-dispatcher").daemon().unstarted(runnable));
+    this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), Thread.ofPlatform().name("feed-stream-sender-", 0).daemon().factory());
+  }
+
+  /**
+   * Publica um tweet recém-criado para os assinantes. Não bloqueia; se a
+   * distribuição estiver sobrecarregada, o evento é descartado.
+   *
+   * @param tweetId           ID do tweet.
+   * @param content           conteúdo do tweet.
+   * @param authorId          ID do autor.
+   * @param creationTimeStamp instante de criação.
+   */
+  public void publish(long tweetId, String content, UUID authorId, Instant creationTimeStamp) {
+    if (pending.incrementAndGet() > dispatchCapacity) {
+      pending.decrementAndGet();
+      rejected.increment();
+      return;
+    }
+    try {
+      dispatcher.execute(() -> {
+        pending.decrementAndGet();
+        dispatchQuietly(tweetId, content, authorId, creationTimeStamp);
+      });
+    } catch (RejectedExecutionException e) {
+      pending.decrementAndGet();
+      rejected.increment();
+    }
+  }
+
+  /**
+   * Conecta um novo assinante.
+   *
+   * @param lastEventId ID do último evento recebido numa conexão anterior, ou
+   *                    null numa conexão nova.
+   * @return emitter da resposta SSE.
+   * @throws RejectedExecutionException caso o limite de assinantes tenha sido
+   *                                    atingido.
+   */
+  public SseEmitter subscribe(Long lastEventId) {
+    return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+  }
+
+  /**
+   * Conecta um novo assinante com o emitter informado.
+   *
+   * @param lastEventId ID do último evento recebido, ou null.
+   * @param emitter     emitter da resposta SSE.
+   * @return o próprio emitter.
+   */
+  SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+    if (subscribers.size() >= maxSubscribers) {
+      throw new RejectedExecutionException("too many feed stream subscribers");
+    }
+    var subscriber = new Subscriber(emitter);
+    subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onTimeout(subscriber::close);
+    subscriber.emitter.onError(error -> subscriber.close());
+
+    // Replay e inscrição sob o mesmo lock da publicação: nenhum evento é perdido
+    // nem entregue duas vezes
+    synchronized (ring) {
+      if (lastEventId != null) {
+        var oldest = Math.max(1, lastSequence - ring.length + 1);
+        if (lastEventId < oldest - 1 || lastEventId > lastSequence) {
+          subscriber.queue.add(RESET);
+        }
+        for (var sequence = Math.max(lastEventId + 1, oldest); sequence <= lastSequence; sequence++) {
+          subscriber.queue.add(ring[(int) (sequence % ring.length)]);
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    subscriber.schedule();
+    return subscriber.emitter;
+  }
+
+  /**
+   * Quantidade de assinantes conectados.
+   *
+   * @return assinantes conectados.
+   */
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  /**
+   * Resolve o autor, serializa o evento e o entrega aos assinantes.
+   */
+  private void dispatchQuietly(long tweetId, String content, UUID authorId, Instant creationTimeStamp) {
+    try {
+      var username = username(authorId);
+      if (username == null) {
+        return;
+      }
+      var json = objectMapper.writeValueAsString(new FeedItemDto(tweetId, content, username, creationTimeStamp));
+      synchronized (ring) {
+        var sequence = ++lastSequence;
+        var event = new Event(SseEmitter.event()
+            .id(Long.toString(sequence))
+            .name("tweet")
+            .data(json, MediaType.APPLICATION_JSON)
+            .build());
+        ring[(int) (sequence % ring.length)] = event;
+        for (var subscriber : subscribers) {
+          subscriber.offer(event);
+        }
+      }
+      published.increment();
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.warn("feed stream dispatch of tweet {} failed", tweetId, e);
+    }
+  }
+
+  /**
+   * Retorna o username do autor, consultando o banco apenas na primeira vez.
+   */
+  private String username(UUID authorId) {
+    var username = usernames.get(authorId);
+    if (username == null) {
+      username = userRepository.findUsernameById(authorId).orElse(null);
+      if (username != null) {
+        if (usernames.size() >= USERNAME_CACHE_LIMIT) {
+          usernames.clear();
+        }
+        usernames.put(authorId, username);
+      }
+    }
+    return username;
+  }
+
+  /**
+   * Envia um heartbeat aos assinantes sem eventos pendentes.
+   */
+  @Scheduled(fixedDelayString = "${feed.stream.heartbeat-interval:15s}",
+      initialDelayString = "${feed.stream.heartbeat-interval:15s}")
+  void heartbeat() {
+    for (var subscriber : subscribers) {
+      subscriber.offerIfIdle(HEARTBEAT);
+    }
+  }
+
+  /**
+   * Desconecta os assinantes com um envio em andamento há mais de
+   * {@code feed.stream.send-timeout}, repondo no pool a thread presa.
+   *
+   * A thread só é liberada quando o envio falha pelo timeout de escrita do
+   * Tomcat ou o cliente volta a ler; até lá, o assinante não recebe novos
+   * eventos.
+   */
+  @Scheduled(fixedDelayString = "${feed.stream.send-timeout:5s}",
+      initialDelayString = "${feed.stream.send-timeout:5s}")
+  void disconnectStalled() {
+    var now = System.nanoTime();
+    for (var subscriber : subscribers) {
+      if (subscriber.stall(now)) {
+        subscribers.remove(subscriber);
+        stalledDisconnects.increment();
+      }
+    }
+  }
+
+  /**
+   * Acrescenta uma thread de envio no lugar de uma presa, se o limite de
+   * threads extras permitir.
+   *
+   * @return true se a thread foi acrescentada.
+   */
+  private boolean addSender() {
+    synchronized (senders) {
+      var size = senders.getMaximumPoolSize();
+      if (size - senderThreads >= maxStalledSenders) {
+        return false;
+      }
+      // Máximo antes do núcleo: o núcleo nunca pode passar do máximo
+      senders.setMaximumPoolSize(size + 1);
+      senders.setCorePoolSize(size + 1);
+      return true;
+    }
+  }
+
+  /**
+   * Devolve uma thread acrescentada por {@link #addSender()}.
+   */
+  private void removeSender() {
+    synchronized (senders) {
+      var size = senders.getCorePoolSize();
+      senders.setCorePoolSize(size - 1);
+      senders.setMaximumPoolSize(size - 1);
+    }
+  }
+
+  /**
+   * Publica a quantidade de assinantes e as contagens de eventos no
+   * Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("feed.stream.subscribers", subscribers, Set::size)
+        .description("Connected /feed/stream subscribers")
+        .register(registry);
+    FunctionCounter.builder("feed.stream.events", published, LongAdder::sum)
+        .description("Tweets broadcast to /feed/stream subscribers")
+        .register(registry);
+    FunctionCounter.builder("feed.stream.rejected", rejected, LongAdder::sum)
+        .description("Tweets not broadcast because the dispatch queue was full")
+        .register(registry);
+    FunctionCounter.builder("feed.stream.dropped", dropped, LongAdder::sum)
+        .description("Events dropped from full subscriber buffers")
+        .register(registry);
+    FunctionCounter.builder("feed.stream.overflow.disconnects", overflowDisconnects, LongAdder::sum)
+        .description("Subscribers disconnected because their buffer was full")
+        .register(registry);
+    FunctionCounter.builder("feed.stream.stalled.disconnects", stalledDisconnects, LongAdder::sum)
+        .description("Subscribers disconnected because a send to them stalled")
+        .register(registry);
+  }
+
+  /**
+   * Encerra a distribuição e as conexões abertas.
+   */
+  @PreDestroy
+  void shutdown() {
+    dispatcher.shutdownNow();
+    senders.shutdownNow();
+    subscribers.forEach(Subscriber::close);
+  }
+
+  /**
+   * Conexão de um assinante, com sua fila de eventos.
+   *
+   * No máximo uma tarefa de envio por assinante está agendada ou em execução,
+   * de modo que os eventos saem na ordem da fila.
+   */
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+
+    /**
+     * Eventos pendentes; guardada pelo próprio assinante.
+     */
+    private final ArrayDeque<Event> queue = new ArrayDeque<>();
+
+    /**
+     * Indica uma tarefa de envio agendada ou em execução.
+     */
+    private boolean scheduled;
+
+    /**
+     * Instante de início do envio em andamento; guardado pelo próprio
+     * assinante e válido apenas com {@code sending}.
+     */
+    private long sendStartedAt;
+
+    /**
+     * Indica um envio em andamento; guardado pelo próprio assinante.
+     */
+    private boolean sending;
+
+    /**
+     * Indica que o envio em andamento parou e ganhou uma thread extra no pool;
+     * guardado pelo próprio assinante.
+     */
+    private boolean replaced;
+
+    private volatile boolean closed;
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    private void offer(Event event) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (queue.size() >= subscriberBuffer) {
+          if (overflow == Overflow.DISCONNECT) {
+            overflowDisconnects.increment();
+            disconnect();
+            return;
+          }
+          queue.poll();
+          dropped.increment();
+        }
+        queue.add(event);
+      }
+      schedule();
+    }
+
+    /**
+     * Encerra a conexão fora da thread de distribuição: o envio em andamento
+     * para um cliente lento bloquearia o {@code complete()}.
+     */
+    private void disconnect() {
+      closed = true;
+      queue.clear();
+      subscribers.remove(this);
+      try {
+        senders.execute(emitter::complete);
+      } catch (RejectedExecutionException e) {
+        // Encerramento da aplicação: as conexões são fechadas pelo container
+      }
+    }
+
+    private void offerIfIdle(Event event) {
+      synchronized (this) {
+        if (closed || !queue.isEmpty()) {
+          return;
+        }
+        queue.add(event);
+      }
+      schedule();
+    }
+
+    private void schedule() {
+      synchronized (this) {
+        if (scheduled || queue.isEmpty()) {
+          return;
+        }
+        scheduled = true;
+      }
+      try {
+        senders.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        close();
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        Event event;
+        synchronized (this) {
+          event = closed ? null : queue.poll();
+          if (event == null) {
+            scheduled = false;
+            return;
+          }
+        }
+        synchronized (this) {
+          sending = true;
+          sendStartedAt = System.nanoTime();
+        }
+        try {
+          emitter.send(event.frame());
+        } catch (IOException | IllegalStateException e) {
+          // Cliente desconectado: o emitter já foi ou será completado
+          closed = true;
+          subscribers.remove(this);
+          synchronized (this) {
+            scheduled = false;
+          }
+          return;
+        } finally {
+          boolean release;
+          synchronized (this) {
+            sending = false;
+            release = replaced;
+            replaced = false;
+          }
+          if (release) {
+            removeSender();
+          }
+        }
+      }
+    }
+
+    /**
+     * Marca o assinante como desconectado se o envio em andamento passou do
+     * limite, acrescentando uma thread de envio no lugar da presa.
+     *
+     * @param now instante atual, de {@link System#nanoTime()}.
+     * @return true se o assinante foi desconectado.
+     */
+    private boolean stall(long now) {
+      synchronized (this) {
+        if (!sending || closed || now - sendStartedAt < sendTimeoutNanos) {
+          return false;
+        }
+        closed = true;
+        queue.clear();
+        replaced = addSender();
+        return true;
+      }
+    }
+
+    private void close() {
+      closed = true;
+      subscribers.remove(this);
+      emitter.complete();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package tech.buildrun.springsecurity.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versão do feed, incrementada a cada tweet criado, removido ou importado, da
+ * qual o {@code /feed} deriva seu ETag sem consultar o banco.
+ *
+ * Logo após uma mudança, o conteúdo lido pode ainda não refleti-la (réplicas
+ * atrasadas, lote do write-behind ainda não gravado); se essa resposta levasse
+ * o ETag da nova versão, o cliente ficaria com a página antiga até a mudança
+ * seguinte. Por isso {@link #etag(String, Object...)} não emite ETag até que
+ * se passe {@code feed.etag.settle-window} desde a última mudança.
+ *
+ * A versão vive em memória e recomeça a cada inicialização; o ETag inclui um
+ * identificador da instância, de modo que ETags de outra instância (ou de
+ * antes de um reinício) nunca coincidem.
+ *
+ * @author Emanuel
+ */
+@Component
+public class FeedVersion {
+
+  /**
+   * Identificador desta instância da aplicação.
+   */
+  private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+  /**
+   * Versão atual do feed.
+   */
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * Tempo, após uma mudança, até que o conteúdo lido seja considerado estável,
+   * em nanossegundos.
+   */
+  private final long settleNanos;
+
+  /**
+   * Instante ({@link System#nanoTime()}) da última mudança; a inicialização
+   * conta como mudança.
+   */
+  private volatile long changedAt = System.nanoTime();
+
+  /**
+   * Construtor com a janela de estabilização configurada.
+   *
+   * @param settleWindow tempo após uma mudança sem emissão de ETag.
+   */
+  public FeedVersion(@Value("${feed.etag.settle-window:5s}") Duration settleWindow) {
+    this.settleNanos = settleWindow.toNanos();
+  }
+
+  /**
+   * Registra uma mudança no feed.
+   */
+  public void bump() {
+    // Instante antes da versão: quem lê a nova versão vê também o novo instante
+    changedAt = System.nanoTime();
+    version.incrementAndGet();
+  }
+
+  /**
+   * Retorna a versão atual.
+   *
+   * @return quantidade de mudanças desde a inicialização.
+   */
+  public long get() {
+    return version.get();
+  }
+
+  /**
+   * Retorna o instante a partir do qual a última mudança é considerada
+   * estável.
+   *
+   * @return instante na escala de {@link System#nanoTime()}.
+   */
+  public long settledAt() {
+    return changedAt + settleNanos;
+  }
+
+  /**
+   * Calcula o ETag de uma resposta do feed.
+   *
+   * @param kind   tipo da resposta (por exemplo, página ou cursor).
+   * @param params parâmetros que distinguem a resposta, como página e tamanho.
+   * @return o ETag, ou null enquanto a última mudança não se estabilizou.
+   */
+  public String etag(String kind, Object... params) {
+    var current = version.get();
+    if (System.nanoTime() - settledAt() < 0) {
+      return null;
+    }
+    var etag = new StringBuilder(kind).append('-').append(instanceId).append('-').append(current);
+    for (var param : params) {
+      etag.append('-').append(param);
+    }
+    return etag.toString();
+  }
+}
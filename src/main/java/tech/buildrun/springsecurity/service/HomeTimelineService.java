@@ -0,0 +1,480 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.repository.FollowRepository;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+/**
+ * Serviço responsável pelas timelines pessoais ("home") dos usuários.
+ *
+ * Usa fan-out na escrita: ao publicar um tweet, seu ID é empurrado para a
+ * timeline em memória de cada seguidor do autor. Cada timeline é uma lista
+ * circular limitada de IDs, de modo que a leitura de uma página não consulta o
+ * grafo de seguidores, apenas os tweets da própria página.
+ *
+ * Autores com muitos seguidores (acima de {@code timeline.celebrity-threshold})
+ * não recebem fan-out, para que uma única escrita não precise atualizar milhões
+ * de timelines. Os tweets desses autores são mesclados na leitura
+ * (fan-out-on-read). Cada timeline guarda as celebridades que o seu dono
+ * segue, lidas na materialização e relidas apenas quando um novo autor vira
+ * celebridade.
+ *
+ * Um tweet removido é lembrado num conjunto limitado de IDs removidos, que a
+ * leitura pula, completando a página com os IDs seguintes, e retira da
+ * timeline lida. A remoção não consulta o banco; se o ID sair do conjunto
+ * antes de ser retirado de alguma timeline, a consulta da página, que ignora
+ * os removidos, devolve a página com um item a menos.
+ *
+ * As timelines só existem para usuários que já as leram: são materializadas a
+ * partir do banco na primeira leitura e recebem os novos IDs a partir daí. A
+ * timeline é registrada antes da consulta, e os IDs empurrados enquanto ela
+ * carrega são mesclados ao resultado, para que um tweet criado durante a carga
+ * não fique de fora.
+ *
+ * @author Emanuel
+ */
+@Service
+public class HomeTimelineService {
+
+  /**
+   * Repositório de tweets, usado para materializar e renderizar timelines.
+   */
+  private final TweetRepository tweetRepository;
+
+  /**
+   * Repositório do grafo de seguidores.
+   */
+  private final FollowRepository followRepository;
+
+  /**
+   * Quantidade máxima de IDs mantidos por timeline.
+   */
+  private final int capacity;
+
+  /**
+   * Quantidade de seguidores a partir da qual o autor deixa de receber fan-out
+   * na escrita.
+   */
+  private final int celebrityThreshold;
+
+  /**
+   * Quantidade máxima de timelines mantidas em memória.
+   */
+  private final int maxTimelines;
+
+  /**
+   * Timelines materializadas, indexadas pelo ID do dono.
+   */
+  private final Map<UUID, Timeline> timelines = new ConcurrentHashMap<>();
+
+  /**
+   * IDs dos autores tratados pelo caminho fan-out-on-read.
+   */
+  private final Set<UUID> celebrities = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Versão do conjunto de celebridades, incrementada a cada autor promovido.
+   */
+  private final AtomicLong celebritiesVersion = new AtomicLong();
+
+  /**
+   * Quantidade máxima de IDs removidos lembrados.
+   */
+  private final int maxRemoved;
+
+  /**
+   * IDs dos tweets removidos, ainda pulados na leitura das timelines.
+   */
+  private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * IDs removidos em ordem de remoção, para descartar os mais antigos.
+   */
+  private final Queue<Long> removedOrder = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Quantidade de IDs em {@link #removedOrder}.
+   */
+  private final AtomicInteger removedCount = new AtomicInteger();
+
+  /**
+   * Construtor com injeção dos repositórios e dos limites configuráveis.
+   *
+   * @param tweetRepository    repositório de tweets.
+   * @param followRepository   repositório de seguidores.
+   * @param capacity           quantidade máxima de IDs por timeline.
+   * @param celebrityThreshold limite de seguidores para o fan-out na escrita.
+   * @param maxTimelines       quantidade máxima de timelines em memória.
+   * @param maxRemoved         quantidade máxima de IDs removidos lembrados.
+   */
+  public HomeTimelineService(TweetRepository tweetRepository, FollowRepository followRepository,
+      @Value("${timeline.capacity:800}") int capacity,
+      @Value("${timeline.celebrity-threshold:10000}") int celebrityThreshold,
+      @Value("${timeline.max-timelines:100000}") int maxTimelines,
+      @Value("${timeline.max-removed:100000}") int maxRemoved) {
+    this.tweetRepository = tweetRepository;
+    this.followRepository = followRepository;
+    this.capacity = capacity;
+    this.celebrityThreshold = celebrityThreshold;
+    this.maxTimelines = maxTimelines;
+    this.maxRemoved = maxRemoved;
+  }
+
+  /**
+   * Distribui um tweet recém-criado para as timelines do autor e de seus
+   * seguidores.
+   *
+   * Se o autor tiver mais seguidores que o limite configurado, ele passa a ser
+   * tratado como celebridade e apenas a sua própria timeline é atualizada.
+   *
+   * @param authorId ID do autor do tweet.
+   * @param tweetId  ID do tweet criado.
+   */
+  public void fanOut(UUID authorId, long tweetId) {
+    push(authorId, tweetId);
+
+    if (celebrities.contains(authorId)) {
+      return;
+    }
+
+    var followerIds = followRepository.findFollowerIds(authorId, Limit.of(celebrityThreshold + 1));
+    if (followerIds.size() > celebrityThreshold) {
+      celebrities.add(authorId);
+      celebritiesVersion.incrementAndGet();
+      return;
+    }
+
+    for (var followerId : followerIds) {
+      push(followerId, tweetId);
+    }
+  }
+
+  /**
+   * Registra um tweet removido, que deixa de aparecer nas timelines já
+   * materializadas.
+   *
+   * @param tweetId ID do tweet removido.
+   */
+  public void remove(long tweetId) {
+    if (!removed.add(tweetId)) {
+      return;
+    }
+    removedOrder.add(tweetId);
+    if (removedCount.incrementAndGet() > maxRemoved) {
+      var oldest = removedOrder.poll();
+      if (oldest != null) {
+        removed.remove(oldest);
+        removedCount.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Retorna uma página da timeline de um usuário, do mais recente ao mais
+   * antigo.
+   *
+   * Páginas além da capacidade da timeline retornam vazias.
+   *
+   * @param userId   ID do dono da timeline.
+   * @param page     número da página (zero-based, não negativo).
+   * @param pageSize quantidade de itens por página (positiva).
+   * @return itens da página solicitada.
+   */
+  public List<FeedItemDto> read(UUID userId, int page, int pageSize) {
+    if ((long) page * pageSize >= capacity) {
+      return List.of();
+    }
+
+    var timeline = timelines.get(userId);
+    if (timeline == null) {
+      timeline = materialize(userId);
+    }
+
+    var from = page * pageSize;
+    var followedCelebrities = followedCelebrities(userId, timeline);
+
+    if (followedCelebrities.isEmpty()) {
+      // Caminho comum: apenas os IDs da própria página são consultados
+      var ids = timeline.slice(from, pageSize, removed);
+      return ids.isEmpty() ? List.of() : tweetRepository.findFeedItemsByIds(ids);
+    }
+
+    // Fan-out-on-read: mescla a timeline com os tweets recentes das celebridades
+    var window = from + pageSize;
+    var merged = new LinkedHashMap<Long, FeedItemDto>();
+    var ids = timeline.slice(0, window, removed);
+    if (!ids.isEmpty()) {
+      tweetRepository.findFeedItemsByIds(ids).forEach(item -> merged.put(item.tweetId(), item));
+    }
+    tweetRepository.findFeedItemsByAuthors(followedCelebrities, Limit.of(window))
+        .forEach(item -> merged.putIfAbsent(item.tweetId(), item));
+
+    return merged.values().stream()
+        .sorted(Comparator.comparing(FeedItemDto::creationTimeStamp)
+            .thenComparing(FeedItemDto::tweetId)
+            .reversed())
+        .skip(from)
+        .limit(pageSize)
+        .toList();
+  }
+
+  /**
+   * Descarta a timeline em memória de um usuário, forçando sua rematerialização
+   * na próxima leitura. Usado quando o usuário passa a seguir ou deixa de seguir
+   * alguém.
+   *
+   * @param userId ID do dono da timeline.
+   */
+  public void invalidate(UUID userId) {
+    timelines.remove(userId);
+  }
+
+  /**
+   * Empurra um ID para a timeline do usuário, caso ela já esteja materializada
+   * ou em carga.
+   *
+   * @param userId  ID do dono da timeline.
+   * @param tweetId ID do tweet.
+   */
+  private void push(UUID userId, long tweetId) {
+    var timeline = timelines.get(userId);
+    if (timeline != null) {
+      timeline.push(tweetId);
+    }
+  }
+
+  /**
+   * Retorna as celebridades seguidas pelo dono da timeline, guardadas na
+   * própria timeline e relidas do grafo apenas se um autor foi promovido desde
+   * a última leitura.
+   *
+   * @param userId   ID do dono da timeline.
+   * @param timeline timeline do usuário.
+   * @return IDs das celebridades seguidas.
+   */
+  private List<UUID> followedCelebrities(UUID userId, Timeline timeline) {
+    // Versão lida antes do conjunto: uma promoção concorrente força nova leitura
+    var version = celebritiesVersion.get();
+    var cached = timeline.celebrities;
+    if (cached != null && cached.version() == version) {
+      return cached.ids();
+    }
+
+    var ids = celebrities.isEmpty()
+        ? List.<UUID>of()
+        : followRepository.findFollowedIds(userId).stream().filter(celebrities::contains).toList();
+    timeline.celebrities = new FollowedCelebrities(version, ids);
+    return ids;
+  }
+
+  /**
+   * Carrega a timeline de um usuário a partir do banco e a mantém em memória.
+   *
+   * A timeline é registrada antes da consulta, de modo que os tweets criados
+   * enquanto ela carrega são acumulados e mesclados ao resultado. Leituras
+   * concorrentes da mesma timeline aguardam a carga.
+   *
+   * @param userId ID do dono da timeline.
+   * @return timeline materializada.
+   */
+  private Timeline materialize(UUID userId) {
+    if (timelines.size() >= maxTimelines) {
+      // Descarta uma timeline qualquer; ela será recarregada se voltar a ser lida
+      var it = timelines.keySet().iterator();
+      if (it.hasNext()) {
+        timelines.remove(it.next());
+      }
+    }
+
+    var timeline = new Timeline(capacity);
+    var existing = timelines.putIfAbsent(userId, timeline);
+    if (existing != null) {
+      return existing;
+    }
+
+    try {
+      followedCelebrities(userId, timeline);
+      timeline.load(tweetRepository.findTimelineIds(userId, Limit.of(capacity)));
+    } catch (RuntimeException e) {
+      // Libera as leituras em espera; a próxima leitura tenta carregar de novo
+      timelines.remove(userId, timeline);
+      timeline.load(List.of());
+      throw e;
+    }
+    return timeline;
+  }
+
+  /**
+   * Celebridades seguidas pelo dono de uma timeline.
+   *
+   * @param version versão do conjunto de celebridades em que foram lidas.
+   * @param ids     IDs das celebridades seguidas.
+   */
+  private record FollowedCelebrities(long version, List<UUID> ids) {
+  }
+
+  /**
+   * Lista circular limitada de IDs de tweets, do mais recente ao mais antigo.
+   */
+  private static final class Timeline {
+
+    /**
+     * IDs armazenados; {@code head} aponta para a próxima posição de escrita.
+     */
+    private final long[] ids;
+
+    /**
+     * Próxima posição de escrita.
+     */
+    private int head;
+
+    /**
+     * Quantidade de IDs armazenados.
+     */
+    private int size;
+
+    /**
+     * IDs empurrados enquanto a timeline carrega; {@code null} após a carga.
+     */
+    private List<Long> pending = new ArrayList<>();
+
+    /**
+     * Celebridades seguidas pelo dono, ou {@code null} se ainda não lidas.
+     */
+    private volatile FollowedCelebrities celebrities;
+
+    /**
+     * Concluído quando a timeline termina de carregar.
+     */
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    /**
+     * Cria uma timeline vazia, em carga, com a capacidade informada.
+     *
+     * @param capacity quantidade máxima de IDs.
+     */
+    Timeline(int capacity) {
+      this.ids = new long[capacity];
+    }
+
+    /**
+     * Preenche a timeline com os IDs lidos do banco e mescla os empurrados
+     * durante a carga que a consulta não viu.
+     *
+     * @param loadedIds IDs lidos do banco, do mais recente ao mais antigo.
+     */
+    void load(List<Long> loadedIds) {
+      synchronized (this) {
+        for (int i = loadedIds.size() - 1; i >= 0; i--) {
+          store(loadedIds.get(i));
+        }
+        var seen = new HashSet<>(loadedIds);
+        for (var tweetId : pending) {
+          if (seen.add(tweetId)) {
+            store(tweetId);
+          }
+        }
+        pending = null;
+      }
+      loaded.complete(null);
+    }
+
+    /**
+     * Adiciona um ID como o mais recente, descartando o mais antigo se cheia.
+     * Durante a carga, o ID é acumulado para ser mesclado ao final.
+     *
+     * @param tweetId ID do tweet.
+     */
+    synchronized void push(long tweetId) {
+      if (pending != null) {
+        pending.add(tweetId);
+        return;
+      }
+      store(tweetId);
+    }
+
+    /**
+     * Retira da timeline os IDs removidos, mantendo a ordem dos demais.
+     *
+     * @param removed IDs dos tweets removidos.
+     */
+    private void compact(Set<Long> removed) {
+      var start = Math.floorMod(head - size, ids.length);
+      var kept = 0;
+      for (int i = 0; i < size; i++) {
+        var id = ids[(start + i) % ids.length];
+        if (!removed.contains(id)) {
+          ids[(start + kept++) % ids.length] = id;
+        }
+      }
+      size = kept;
+      head = (start + kept) % ids.length;
+    }
+
+    /**
+     * Grava um ID na próxima posição da lista circular.
+     *
+     * @param tweetId ID do tweet.
+     */
+    private void store(long tweetId) {
+      ids[head] = tweetId;
+      head = (head + 1) % ids.length;
+      if (size < ids.length) {
+        size++;
+      }
+    }
+
+    /**
+     * Copia um trecho da timeline, do mais recente ao mais antigo, aguardando
+     * a carga se necessário.
+     *
+     * Os IDs removidos não contam nas posições e, se encontrados, são retirados
+     * da timeline.
+     *
+     * @param from    posição inicial (0 = mais recente).
+     * @param count   quantidade de IDs.
+     * @param removed IDs dos tweets removidos.
+     * @return IDs do trecho solicitado.
+     */
+    List<Long> slice(int from, int count, Set<Long> removed) {
+      // Fora do monitor: a espera não prende a thread portadora de uma thread virtual
+      loaded.join();
+      synchronized (this) {
+        var result = new ArrayList<Long>(count);
+        var visible = 0;
+        var stale = false;
+        for (int i = 0; i < size && visible < from + count; i++) {
+          var id = ids[Math.floorMod(head - 1 - i, ids.length)];
+          if (removed.contains(id)) {
+            stale = true;
+          } else if (visible++ >= from) {
+            result.add(id);
+          }
+        }
+        if (stale) {
+          compact(removed);
+        }
+        return result;
+      }
+    }
+  }
+}
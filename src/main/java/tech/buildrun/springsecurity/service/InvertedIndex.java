@@ -0,0 +1,569 @@
+package tech.buildrun.springsecurity.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória sobre o conteúdo dos tweets.
+ *
+ * Cada termo aponta para uma lista de postings ordenada por ID de tweet, com a
+ * frequência do termo em cada tweet. Consultas com vários termos exigem todos
+ * eles (AND): a lista mais rara é percorrida e os demais termos são buscados
+ * por busca binária. O ranking é BM25 sem normalização de tamanho (tweets são
+ * curtos), com o tweet mais recente (maior ID) desempatando.
+ *
+ * Remoções viram lápides filtradas na consulta e são descartadas fisicamente
+ * em {@link #compact()}.
+ *
+ * O índice pode ser gravado em um segmento binário com {@link #write(Path)} e
+ * recarregado com {@link #read(Path)}, ambos por meio de arquivos mapeados em
+ * memória.
+ *
+ * Termos: sequências de letras, dígitos e {@code _}, em minúsculas e sem
+ * acentos, de modo que "Ação" e "acao" são o mesmo termo.
+ *
+ * @author Emanuel
+ */
+public class InvertedIndex {
+
+  /**
+   * Identificação do formato do segmento ("TSX1").
+   */
+  private static final int MAGIC = 0x54535831;
+
+  /**
+   * Parâmetro de saturação da frequência do termo no BM25.
+   */
+  private static final double K1 = 1.2;
+
+  /**
+   * Quantidade máxima de termos considerados por consulta.
+   */
+  private static final int MAX_QUERY_TERMS = 8;
+
+  private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}_]+");
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  /**
+   * Resultado de uma consulta.
+   *
+   * @param tweetIds  IDs da página solicitada, do mais relevante ao menos.
+   * @param totalHits quantidade total de tweets que satisfazem a consulta.
+   */
+  public record Result(List<Long> tweetIds, long totalHits) {
+  }
+
+  /**
+   * Lista de postings de um termo, ordenada por ID.
+   */
+  private static final class Postings {
+
+    private long[] ids;
+
+    private byte[] tfs;
+
+    private int size;
+
+    Postings(int capacity) {
+      ids = new long[capacity];
+      tfs = new byte[capacity];
+    }
+
+    Postings(long[] ids, byte[] tfs) {
+      this.ids = ids;
+      this.tfs = tfs;
+      this.size = ids.length;
+    }
+
+    int indexOf(long id) {
+      return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    boolean contains(long id) {
+      return indexOf(id) >= 0;
+    }
+
+    void add(long id, int tf) {
+      var value = (byte) Math.min(tf, Byte.MAX_VALUE);
+      if (size > 0 && id <= ids[size - 1]) {
+        // IDs fora de ordem são raros (gravação em lote concorrente)
+        var at = indexOf(id);
+        if (at >= 0) {
+          tfs[at] = value;
+          return;
+        }
+        insertAt(-at - 1, id, value);
+        return;
+      }
+      grow();
+      ids[size] = id;
+      tfs[size] = value;
+      size++;
+    }
+
+    private void insertAt(int at, long id, byte tf) {
+      grow();
+      System.arraycopy(ids, at, ids, at + 1, size - at);
+      System.arraycopy(tfs, at, tfs, at + 1, size - at);
+      ids[at] = id;
+      tfs[at] = tf;
+      size++;
+    }
+
+    private void grow() {
+      if (size == ids.length) {
+        var capacity = Math.max(4, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        tfs = Arrays.copyOf(tfs, capacity);
+      }
+    }
+
+    /**
+     * Remove os IDs presentes nas lápides.
+     *
+     * @param deleted IDs removidos.
+     */
+    void removeAll(Set<Long> deleted) {
+      var kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (!deleted.contains(ids[i])) {
+          ids[kept] = ids[i];
+          tfs[kept] = tfs[i];
+          kept++;
+        }
+      }
+      size = kept;
+      if (ids.length > 16 && size < ids.length / 4) {
+        ids = Arrays.copyOf(ids, Math.max(4, size));
+        tfs = Arrays.copyOf(tfs, Math.max(4, size));
+      }
+    }
+  }
+
+  /**
+   * Candidato no ranking de uma consulta.
+   */
+  private record Hit(long tweetId, double score) {
+  }
+
+  /**
+   * Ordem crescente de relevância: maior pontuação e, no empate, o tweet mais
+   * recente (maior ID).
+   */
+  private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score)
+      .thenComparingLong(Hit::tweetId);
+
+  /**
+   * Postings por termo.
+   */
+  private final Map<String, Postings> terms = new HashMap<>();
+
+  /**
+   * Todos os tweets indexados (inclusive sem termos), para deduplicação e
+   * contagem.
+   */
+  private final Postings documents = new Postings(16);
+
+  /**
+   * Lápides dos tweets removidos ainda presentes nas postings.
+   */
+  private final Set<Long> deleted = new HashSet<>();
+
+  /**
+   * Consultas em paralelo; escritas e compactação exclusivas.
+   */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Extrai os termos de um texto, com a frequência de cada um.
+   *
+   * @param text texto do tweet ou da consulta.
+   * @return termos na ordem de primeira ocorrência e suas frequências.
+   */
+  public static Map<String, Integer> terms(String text) {
+    var result = new LinkedHashMap<String, Integer>();
+    if (text == null) {
+      return result;
+    }
+    var normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+        .toLowerCase();
+    var matcher = TOKEN.matcher(normalized);
+    while (matcher.find()) {
+      result.merge(matcher.group(), 1, Integer::sum);
+    }
+    return result;
+  }
+
+  /**
+   * Indexa um tweet. Tweets já indexados são ignorados.
+   *
+   * @param tweetId ID do tweet.
+   * @param content conteúdo do tweet.
+   */
+  public void add(long tweetId, String content) {
+    var tokens = terms(content);
+    lock.writeLock().lock();
+    try {
+      if (documents.contains(tweetId)) {
+        return;
+      }
+      documents.add(tweetId, 0);
+      tokens.forEach((term, tf) -> terms.computeIfAbsent(term, t -> new Postings(4)).add(tweetId, tf));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove um tweet do índice.
+   *
+   * @param tweetId ID do tweet.
+   */
+  public void remove(long tweetId) {
+    lock.writeLock().lock();
+    try {
+      if (documents.contains(tweetId)) {
+        deleted.add(tweetId);
+      }
+      if (deleted.size() > 1024 && deleted.size() > documents.size / 10) {
+        compactLocked();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Descarta fisicamente os tweets removidos.
+   */
+  public void compact() {
+    lock.writeLock().lock();
+    try {
+      compactLocked();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void compactLocked() {
+    if (deleted.isEmpty()) {
+      return;
+    }
+    documents.removeAll(deleted);
+    var it = terms.values().iterator();
+    while (it.hasNext()) {
+      var postings = it.next();
+      postings.removeAll(deleted);
+      if (postings.size == 0) {
+        it.remove();
+      }
+    }
+    deleted.clear();
+  }
+
+  /**
+   * Executa uma consulta e retorna uma página do ranking.
+   *
+   * @param query    texto da consulta; todos os termos são exigidos.
+   * @param page     número da página (zero-based).
+   * @param pageSize quantidade de resultados por página.
+   * @return IDs da página e total de resultados.
+   */
+  public Result search(String query, int page, int pageSize) {
+    var queryTerms = terms(query).keySet().stream().limit(MAX_QUERY_TERMS).toList();
+    if (queryTerms.isEmpty()) {
+      return new Result(List.of(), 0);
+    }
+    var window = (page + 1) * pageSize;
+
+    lock.readLock().lock();
+    try {
+      var lists = new ArrayList<Postings>(queryTerms.size());
+      for (var term : queryTerms) {
+        var postings = terms.get(term);
+        if (postings == null) {
+          return new Result(List.of(), 0);
+        }
+        lists.add(postings);
+      }
+      lists.sort(Comparator.comparingInt(postings -> postings.size));
+
+      var live = Math.max(1, documents.size - deleted.size());
+      var idf = new double[lists.size()];
+      for (int i = 0; i < lists.size(); i++) {
+        var df = lists.get(i).size;
+        idf[i] = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+      }
+
+      var top = new PriorityQueue<>(window + 1, RANKING);
+      var totalHits = 0L;
+      var rarest = lists.get(0);
+      candidates: for (int i = 0; i < rarest.size; i++) {
+        var id = rarest.ids[i];
+        if (!deleted.isEmpty() && deleted.contains(id)) {
+          continue;
+        }
+        var score = idf[0] * weight(rarest.tfs[i]);
+        for (int t = 1; t < lists.size(); t++) {
+          var at = lists.get(t).indexOf(id);
+          if (at < 0) {
+            continue candidates;
+          }
+          score += idf[t] * weight(lists.get(t).tfs[at]);
+        }
+        totalHits++;
+        if (top.size() < window) {
+          top.add(new Hit(id, score));
+        } else if (RANKING.compare(new Hit(id, score), top.peek()) > 0) {
+          top.poll();
+          top.add(new Hit(id, score));
+        }
+      }
+
+      var ranked = new ArrayList<>(top);
+      ranked.sort(RANKING.reversed());
+      var from = Math.min(page * pageSize, ranked.size());
+      return new Result(ranked.subList(from, ranked.size()).stream().map(Hit::tweetId).toList(), totalHits);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static double weight(int tf) {
+    return tf * (K1 + 1) / (tf + K1);
+  }
+
+  /**
+   * Retorna a quantidade de tweets indexados e não removidos.
+   *
+   * @return documentos do índice.
+   */
+  public long documentCount() {
+    lock.readLock().lock();
+    try {
+      return documents.size - deleted.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Retorna a quantidade de termos distintos.
+   *
+   * @return tamanho do vocabulário.
+   */
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      return terms.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Retorna o maior ID de tweet indexado.
+   *
+   * @return maior ID indexado, ou zero com o índice vazio.
+   */
+  public long maxTweetId() {
+    lock.readLock().lock();
+    try {
+      return documents.size == 0 ? 0 : documents.ids[documents.size - 1];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Retorna os próximos IDs indexados e não removidos maiores que o
+   * informado, em ordem crescente.
+   *
+   * @param afterId maior ID já lido.
+   * @param limit   quantidade máxima de IDs.
+   * @return IDs do bloco.
+   */
+  public List<Long> documentIds(long afterId, int limit) {
+    lock.readLock().lock();
+    try {
+      var at = documents.indexOf(afterId);
+      var from = at >= 0 ? at + 1 : -at - 1;
+      var ids = new ArrayList<Long>(Math.min(limit, documents.size - from));
+      for (int i = from; i < documents.size && ids.size() < limit; i++) {
+        if (!deleted.contains(documents.ids[i])) {
+          ids.add(documents.ids[i]);
+        }
+      }
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Esvazia o índice.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      terms.clear();
+      documents.size = 0;
+      deleted.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Grava o índice em um segmento, substituindo o arquivo de forma atômica.
+   *
+   * Formato: cabeçalho ({@code MAGIC}, quantidade de termos), lista de
+   * documentos e, para cada termo, o termo em UTF-8 seguido dos IDs e
+   * frequências. Os tweets removidos são compactados antes da gravação.
+   *
+   * Sob o lock, as postings são apenas copiadas; a escrita no arquivo e o
+   * {@code force()} acontecem sobre a cópia, sem bloquear as inclusões e
+   * remoções do índice.
+   *
+   * @param path arquivo do segmento.
+   * @throws IOException caso a gravação falhe ou o segmento passe de 2 GB.
+   */
+  public void write(Path path) throws IOException {
+    Postings snapshotDocuments;
+    var snapshotTerms = new ArrayList<Map.Entry<byte[], Postings>>();
+    lock.writeLock().lock();
+    try {
+      compactLocked();
+      // Cópia com o lock de leitura: consultas seguem, escritas aguardam só a cópia
+      lock.readLock().lock();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      snapshotDocuments = copy(documents);
+      snapshotTerms.ensureCapacity(terms.size());
+      for (var entry : terms.entrySet()) {
+        snapshotTerms.add(Map.entry(entry.getKey().getBytes(StandardCharsets.UTF_8), copy(entry.getValue())));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    long size = 4 + 4 + 4 + 9L * snapshotDocuments.size;
+    for (var entry : snapshotTerms) {
+      size += 2 + entry.getKey().length + 4 + 9L * entry.getValue().size;
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("search segment too large: " + size + " bytes");
+    }
+
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.putInt(MAGIC);
+      buffer.putInt(snapshotTerms.size());
+      putPostings(buffer, snapshotDocuments);
+      for (var entry : snapshotTerms) {
+        buffer.putShort((short) entry.getKey().length);
+        buffer.put(entry.getKey());
+        putPostings(buffer, entry.getValue());
+      }
+      buffer.force();
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Copia uma lista de postings, apenas com as posições ocupadas.
+   */
+  private static Postings copy(Postings postings) {
+    return new Postings(Arrays.copyOf(postings.ids, postings.size), Arrays.copyOf(postings.tfs, postings.size));
+  }
+
+  /**
+   * Grava uma lista de postings: tamanho, IDs e frequências.
+   */
+  private static void putPostings(MappedByteBuffer buffer, Postings postings) {
+    buffer.putInt(postings.size);
+    buffer.asLongBuffer().put(postings.ids, 0, postings.size);
+    buffer.position(buffer.position() + 8 * postings.size);
+    buffer.put(postings.tfs, 0, postings.size);
+  }
+
+  /**
+   * Substitui o conteúdo do índice pelo de um segmento gravado com
+   * {@link #write(Path)}.
+   *
+   * @param path arquivo do segmento.
+   * @throws IOException caso a leitura falhe ou o arquivo não seja um segmento
+   *                     válido.
+   */
+  public void read(Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("not a search segment: " + path);
+      }
+      var termCount = buffer.getInt();
+      var loadedDocuments = getPostings(buffer);
+      var loadedTerms = new HashMap<String, Postings>(termCount * 4 / 3 + 1);
+      for (int i = 0; i < termCount; i++) {
+        var bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        loadedTerms.put(new String(bytes, StandardCharsets.UTF_8), getPostings(buffer));
+      }
+
+      lock.writeLock().lock();
+      try {
+        terms.clear();
+        terms.putAll(loadedTerms);
+        documents.ids = loadedDocuments.ids;
+        documents.tfs = loadedDocuments.tfs;
+        documents.size = loadedDocuments.size;
+        deleted.clear();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    } catch (RuntimeException e) {
+      // BufferUnderflowException e similares: arquivo truncado
+      throw new IOException("corrupt search segment: " + path, e);
+    }
+  }
+
+  /**
+   * Lê uma lista de postings gravada por
+   * {@link #putPostings(MappedByteBuffer, Postings)}.
+   */
+  private static Postings getPostings(ByteBuffer buffer) {
+    var size = buffer.getInt();
+    var ids = new long[size];
+    buffer.asLongBuffer().get(ids);
+    buffer.position(buffer.position() + 8 * size);
+    var tfs = new byte[size];
+    buffer.get(tfs);
+    return new Postings(ids, tfs);
+  }
+}
@@ -0,0 +1,144 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pool dedicado e limitado para as operações BCrypt (hash e verificação de
+ * senhas).
+ *
+ * O BCrypt é deliberadamente caro; executado nas threads do Tomcat, uma rajada
+ * de logins ocupa todas elas e derruba a latência de endpoints baratos como o
+ * {@code /feed}. Aqui as operações rodam em um pool de tamanho fixo
+ * ({@code security.password-hashing.pool-size}) com fila limitada
+ * ({@code security.password-hashing.queue-capacity}). Com o pool e a fila
+ * cheios, novas operações são rejeitadas imediatamente com
+ * {@link RejectedExecutionException}, que os controladores convertem em 503.
+ *
+ * As métricas do pool são publicadas no Micrometer com o nome
+ * {@code password.hashing}, além do contador
+ * {@code password.hashing.rejected}.
+ *
+ * O pool usa threads de plataforma mesmo com
+ * {@code spring.threads.virtual.enabled=true}: o BCrypt é limitado por CPU, e
+ * threads virtuais não aumentam sua vazão, apenas removeriam o limite que
+ * protege as demais requisições.
+ *
+ * @author Emanuel
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+  /**
+   * Encoder BCrypt executado dentro do pool.
+   */
+  private final BCryptPasswordEncoder bCryptPasswordEncoder;
+
+  /**
+   * Pool de threads dedicado ao BCrypt.
+   */
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Quantidade de operações rejeitadas por falta de capacidade.
+   */
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Construtor que cria o pool com os limites configurados.
+   *
+   * @param bCryptPasswordEncoder encoder BCrypt da aplicação.
+   * @param poolSize              quantidade de threads do pool; zero usa a
+   *                              quantidade de processadores.
+   * @param queueCapacity         quantidade máxima de operações aguardando.
+   */
+  public PasswordHashingExecutor(BCryptPasswordEncoder bCryptPasswordEncoder,
+      @Value("${security.password-hashing.pool-size:0}") int poolSize,
+      @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity) {
+    this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+
+    var threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    var counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> Thread.ofPlatform().name("bcrypt-" + counter.incrementAndGet()).daemon().unstarted(runnable),
+        (runnable, pool) -> {
+          rejected.increment();
+          throw new RejectedExecutionException("password hashing pool is saturated");
+        });
+  }
+
+  /**
+   * Gera o hash BCrypt de uma senha no pool dedicado.
+   *
+   * @param rawPassword senha em texto puro.
+   * @return futuro com o hash gerado.
+   * @throws RejectedExecutionException caso o pool e a fila estejam cheios.
+   */
+  public CompletableFuture<String> encode(String rawPassword) {
+    return submit(() -> bCryptPasswordEncoder.encode(rawPassword));
+  }
+
+  /**
+   * Executa uma tarefa de credenciais (tipicamente uma verificação BCrypt) no
+   * pool dedicado.
+   *
+   * @param <T>  tipo do resultado.
+   * @param task tarefa a ser executada.
+   * @return futuro com o resultado da tarefa.
+   * @throws RejectedExecutionException caso o pool e a fila estejam cheios.
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, executor);
+  }
+
+  /**
+   * Retorna a quantidade de operações rejeitadas.
+   *
+   * @return operações rejeitadas desde a inicialização.
+   */
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  /**
+   * Publica as métricas do pool no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    new ExecutorServiceMetrics(executor, "password.hashing", Tags.empty()).bindTo(registry);
+    FunctionCounter.builder("password.hashing.rejected", this, PasswordHashingExecutor::getRejected)
+        .description("Password hashing tasks rejected because the pool was saturated")
+        .register(registry);
+  }
+
+  /**
+   * Encerra o pool, aguardando as operações em andamento.
+   *
+   * @throws InterruptedException caso a espera seja interrompida.
+   */
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,78 @@
+package tech.buildrun.springsecurity.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro dos usuários que escreveram recentemente, para a consistência
+ * "read-your-writes" com réplicas de leitura.
+ *
+ * Depois que um usuário publica ou remove um tweet, suas leituras dentro de
+ * {@code datasource.replicas.sticky-window} continuam indo ao primário, de modo
+ * que ele veja a própria escrita mesmo que as réplicas estejam atrasadas.
+ *
+ * @author Emanuel
+ */
+@Component
+public class RecentWriteTracker {
+
+  /**
+   * Quantidade de entradas a partir da qual as expiradas são descartadas.
+   */
+  private static final int SWEEP_THRESHOLD = 10_000;
+
+  /**
+   * Duração da janela de leitura no primário após uma escrita, em nanossegundos.
+   */
+  private final long windowNanos;
+
+  /**
+   * Instante ({@link System#nanoTime()}) até o qual cada usuário lê do
+   * primário, indexado pelo ID do usuário.
+   */
+  private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+  /**
+   * Construtor com a duração da janela configurada.
+   *
+   * @param window duração da janela de leitura no primário após uma escrita.
+   */
+  public RecentWriteTracker(@Value("${datasource.replicas.sticky-window:5s}") Duration window) {
+    this.windowNanos = window.toNanos();
+  }
+
+  /**
+   * Registra uma escrita do usuário.
+   *
+   * @param userId ID do usuário (o {@code subject} do JWT).
+   */
+  public void markWrite(String userId) {
+    var now = System.nanoTime();
+    if (stickyUntil.size() >= SWEEP_THRESHOLD) {
+      stickyUntil.values().removeIf(until -> until - now <= 0);
+    }
+    stickyUntil.put(userId, now + windowNanos);
+  }
+
+  /**
+   * Indica se o usuário escreveu dentro da janela configurada.
+   *
+   * @param userId ID do usuário (o {@code subject} do JWT).
+   * @return true se as leituras do usuário devem ir ao primário.
+   */
+  public boolean isRecentWriter(String userId) {
+    var until = stickyUntil.get(userId);
+    if (until == null) {
+      return false;
+    }
+    if (until - System.nanoTime() > 0) {
+      return true;
+    }
+    stickyUntil.remove(userId, until);
+    return false;
+  }
+}
@@ -0,0 +1,241 @@
+package tech.buildrun.springsecurity.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Armazenamento em memória dos refresh tokens emitidos no login.
+ *
+ * Cada refresh token é um valor aleatório opaco de 256 bits; o store guarda
+ * apenas o hash SHA-256 do token, associado ao usuário e à data de expiração.
+ * As permissões não são guardadas: a renovação relê o usuário e suas roles
+ * pela chave primária, sem refazer o BCrypt, de modo que um usuário rebaixado
+ * ou removido deixa de renovar o acesso.
+ *
+ * Os tokens são rotativos: cada uso consome o token apresentado, que deixa de
+ * valer, e emite um novo na mesma família (a cadeia iniciada num login). Os
+ * tokens consumidos são lembrados até expirarem; reapresentar um deles indica
+ * que o token vazou, e a família inteira é revogada. Entradas expiradas são
+ * removidas a cada {@code jwt.refresh.sweep-interval}.
+ *
+ * @author Emanuel
+ */
+@Component
+public class RefreshTokenStore implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+  /**
+   * Dados associados a um refresh token.
+   *
+   * @param userId    ID do usuário dono do token.
+   * @param family    família do token, compartilhada pelas rotações de um
+   *                  mesmo login.
+   * @param expiresAt instante de expiração do token.
+   * @param consumed  indica um token já usado.
+   */
+  public record Entry(UUID userId, UUID family, Instant expiresAt, boolean consumed) {
+  }
+
+  /**
+   * Gerador de valores aleatórios para os tokens.
+   */
+  private final SecureRandom random = new SecureRandom();
+
+  /**
+   * Tokens válidos e consumidos, indexados pelo hash do token.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Hash do token válido de cada família ativa.
+   */
+  private final Map<UUID, String> families = new ConcurrentHashMap<>();
+
+  /**
+   * Famílias revogadas por reuso de um token consumido.
+   */
+  private final LongAdder revoked = new LongAdder();
+
+  /**
+   * Tempo de validade de um refresh token.
+   */
+  private final Duration expiresIn;
+
+  /**
+   * Construtor com injeção do tempo de validade dos tokens.
+   *
+   * @param expiresIn tempo de validade de um refresh token.
+   */
+  public RefreshTokenStore(@Value("${jwt.refresh.expires-in:24h}") Duration expiresIn) {
+    this.expiresIn = expiresIn;
+  }
+
+  /**
+   * Emite o refresh token de um login, iniciando uma nova família.
+   *
+   * @param userId ID do usuário.
+   * @return o refresh token emitido.
+   */
+  public String issue(UUID userId) {
+    var family = UUID.randomUUID();
+    var token = newToken();
+    var hash = hash(token);
+    entries.put(hash, new Entry(userId, family, Instant.now().plus(expiresIn), false));
+    families.put(family, hash);
+    return token;
+  }
+
+  /**
+   * Emite o sucessor de um refresh token consumido, na mesma família.
+   *
+   * @param consumed entrada retornada por {@link #consume(String)}.
+   * @return o novo refresh token, ou vazio caso a família tenha sido revogada
+   *         enquanto isso.
+   */
+  public Optional<String> rotate(Entry consumed) {
+    var token = newToken();
+    var hash = hash(token);
+    entries.put(hash, new Entry(consumed.userId(), consumed.family(), Instant.now().plus(expiresIn), false));
+    // Só substitui uma família ainda ativa: uma revogação concorrente prevalece
+    if (families.replace(consumed.family(), hash) == null) {
+      entries.remove(hash);
+      return Optional.empty();
+    }
+    return Optional.of(token);
+  }
+
+  /**
+   * Consome um refresh token. O token deixa de valer mesmo que esteja expirado;
+   * um token já consumido revoga a sua família.
+   *
+   * @param token refresh token apresentado pelo cliente.
+   * @return os dados do token, ou vazio caso seja desconhecido, expirado, já
+   *         usado ou de uma família revogada.
+   */
+  public Optional<Entry> consume(String token) {
+    if (token == null || token.isEmpty()) {
+      return Optional.empty();
+    }
+    var hash = hash(token);
+    var entry = entries.get(hash);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (entry.consumed() || !entries.replace(hash, entry, consumed(entry))) {
+      log.warn("refresh token reused, revoking its family for user {}", entry.userId());
+      revoked.increment();
+      revoke(entry.family());
+      return Optional.empty();
+    }
+    if (!Instant.now().isBefore(entry.expiresAt()) || !families.containsKey(entry.family())) {
+      return Optional.empty();
+    }
+    return Optional.of(entry);
+  }
+
+  /**
+   * Revoga uma família: o seu token válido deixa de valer e nenhuma rotação em
+   * andamento é concluída.
+   *
+   * @param family família a ser revogada.
+   */
+  public void revoke(UUID family) {
+    var hash = families.remove(family);
+    if (hash != null) {
+      entries.computeIfPresent(hash, (key, entry) -> consumed(entry));
+    }
+  }
+
+  /**
+   * Retorna o tempo de validade de um refresh token.
+   *
+   * @return validade do refresh token.
+   */
+  public Duration getExpiresIn() {
+    return expiresIn;
+  }
+
+  /**
+   * Remove as entradas expiradas.
+   */
+  @Scheduled(fixedDelayString = "${jwt.refresh.sweep-interval:1m}",
+      initialDelayString = "${jwt.refresh.sweep-interval:1m}")
+  void sweep() {
+    var now = Instant.now();
+    entries.values().removeIf(entry -> !now.isBefore(entry.expiresAt()));
+    families.values().removeIf(hash -> !entries.containsKey(hash));
+  }
+
+  /**
+   * Gera um novo valor de token.
+   *
+   * @return token aleatório codificado em Base64 URL-safe.
+   */
+  private String newToken() {
+    var bytes = new byte[32];
+    random.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  /**
+   * Marca uma entrada como consumida.
+   *
+   * @param entry entrada do token.
+   * @return cópia consumida da entrada.
+   */
+  private static Entry consumed(Entry entry) {
+    return new Entry(entry.userId(), entry.family(), entry.expiresAt(), true);
+  }
+
+  /**
+   * Calcula o hash SHA-256 do token, codificado em Base64.
+   *
+   * @param token refresh token.
+   * @return hash do token.
+   */
+  private static String hash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Publica a quantidade de refresh tokens ativos no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("jwt.refresh.tokens", entries, Map::size)
+        .description("Refresh tokens currently held in memory")
+        .register(registry);
+    FunctionCounter.builder("jwt.refresh.revoked", revoked, LongAdder::sum)
+        .description("Refresh token families revoked because a consumed token was reused")
+        .register(registry);
+  }
+}
@@ -0,0 +1,184 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import tech.buildrun.springsecurity.entities.Role;
+import tech.buildrun.springsecurity.repository.RoleRepository;
+
+/**
+ * Registro imutável das roles cadastradas em {@code tb_roles}.
+ *
+ * As roles são lidas uma única vez (na primeira consulta) e mantidas num
+ * snapshot imutável de nome para ID, substituído por inteiro a cada
+ * {@code roles.refresh-interval} ou chamada a {@link #refresh()}, de modo que
+ * alterações administrativas na tabela sejam percebidas sem reiniciar a
+ * aplicação.
+ *
+ * Cada role ocupa o bit {@code 1 << roleId} de uma máscara {@code long}, e as
+ * verificações de autoridade são testes sobre essa máscara em vez de
+ * comparações de nomes.
+ *
+ * @author Emanuel
+ */
+@Component
+public class RoleRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(RoleRegistry.class);
+
+  /**
+   * Prefixo das autoridades derivadas da claim {@code scope} do JWT.
+   */
+  private static final String SCOPE_PREFIX = "SCOPE_";
+
+  /**
+   * Conteúdo imutável do registro.
+   *
+   * @param idsByName IDs das roles, indexados pelo nome em maiúsculas.
+   */
+  private record Snapshot(Map<String, Long> idsByName) {
+  }
+
+  /**
+   * Repositório de roles, consultado apenas na carga do registro.
+   */
+  private final RoleRepository roleRepository;
+
+  /**
+   * Entity manager compartilhado, usado para obter referências às roles sem
+   * consultar o banco.
+   */
+  private final EntityManager entityManager;
+
+  /**
+   * Snapshot atual; null até a primeira carga.
+   */
+  private volatile Snapshot snapshot;
+
+  /**
+   * Construtor com injeção do repositório e do entity manager.
+   *
+   * @param roleRepository repositório de roles.
+   * @param entityManager  entity manager compartilhado.
+   */
+  public RoleRegistry(RoleRepository roleRepository, EntityManager entityManager) {
+    this.roleRepository = roleRepository;
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Retorna o ID de uma role padrão.
+   *
+   * @param role role padrão.
+   * @return ID da role em {@code tb_roles}.
+   * @throws IllegalStateException caso a role não esteja cadastrada.
+   */
+  public long id(Role.Values role) {
+    var id = snapshot().idsByName().get(role.name());
+    if (id == null) {
+      throw new IllegalStateException("role not registered: " + role.name());
+    }
+    return id;
+  }
+
+  /**
+   * Retorna uma referência gerenciada a uma role padrão, sem consultar o banco.
+   *
+   * Deve ser chamado dentro de uma transação, para associar a role a uma
+   * entidade que será persistida.
+   *
+   * @param role role padrão.
+   * @return referência à entidade {@link Role}.
+   * @throws IllegalStateException caso a role não esteja cadastrada.
+   */
+  public Role reference(Role.Values role) {
+    return entityManager.getReference(Role.class, id(role));
+  }
+
+  /**
+   * Calcula a máscara das roles presentes nas autoridades de um token
+   * ({@code SCOPE_<ROLE>}). Autoridades que não são roles são ignoradas.
+   *
+   * @param authorities autoridades do usuário autenticado.
+   * @return máscara das roles.
+   */
+  public long mask(Collection<? extends GrantedAuthority> authorities) {
+    var idsByName = snapshot().idsByName();
+    var mask = 0L;
+    for (var authority : authorities) {
+      var name = authority.getAuthority();
+      if (name != null && name.startsWith(SCOPE_PREFIX)) {
+        var id = idsByName.get(name.substring(SCOPE_PREFIX.length()).toUpperCase(Locale.ROOT));
+        if (id != null) {
+          mask |= 1L << id;
+        }
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Verifica se uma máscara contém uma role padrão.
+   *
+   * @param mask máscara das roles do usuário.
+   * @param role role procurada.
+   * @return true se o bit da role estiver presente.
+   */
+  public boolean has(long mask, Role.Values role) {
+    var id = snapshot().idsByName().get(role.name());
+    return id != null && (mask & (1L << id)) != 0;
+  }
+
+  /**
+   * Recarrega o registro a partir de {@code tb_roles}.
+   */
+  public void refresh() {
+    var idsByName = new HashMap<String, Long>();
+    for (var role : roleRepository.findAll()) {
+      var id = role.getRoleID();
+      if (id == null || id < 0 || id >= Long.SIZE) {
+        log.warn("role {} has id {} outside the bitmask range, ignored", role.getName(), id);
+        continue;
+      }
+      idsByName.put(role.getName().toUpperCase(Locale.ROOT), id);
+    }
+    snapshot = new Snapshot(Map.copyOf(idsByName));
+  }
+
+  /**
+   * Retorna o snapshot atual, carregando-o na primeira chamada.
+   */
+  private Snapshot snapshot() {
+    var current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        if (snapshot == null) {
+          refresh();
+        }
+        current = snapshot;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Recarga agendada: falhas são registradas e o snapshot anterior é mantido.
+   */
+  @Scheduled(fixedDelayString = "${roles.refresh-interval:5m}", initialDelayString = "${roles.refresh-interval:5m}")
+  void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      log.warn("role registry refresh failed", e);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package tech.buildrun.springsecurity.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash de 64 bits de strings para as estruturas probabilísticas (filtro de
+ * Bloom, count-min).
+ *
+ * Diferente de {@link String#hashCode()}, colisões não são triviais de montar
+ * ("Aa" e "BB", por exemplo, têm o mesmo {@code hashCode}). As duas metades do
+ * valor servem de base para derivar várias funções de hash por
+ * {@code h1 + i * h2}.
+ *
+ * @author Emanuel
+ */
+final class StringHash {
+
+  private StringHash() {
+  }
+
+  /**
+   * Hash de 64 bits (FNV-1a seguido de um finalizador) dos bytes UTF-8 do
+   * valor.
+   *
+   * @param value valor a ser espalhado.
+   * @return hash de 64 bits.
+   */
+  static long hash64(String value) {
+    var hash = 0xCBF29CE484222325L;
+    for (var b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001B3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,139 @@
+package tech.buildrun.springsecurity.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import tech.buildrun.springsecurity.controller.dto.TrendingDto;
+
+/**
+ * Serviço dos assuntos em alta: hashtags e menções mais frequentes nos últimos
+ * 5 minutos, 1 hora e 24 horas.
+ *
+ * Os tokens são extraídos do conteúdo de cada tweet no momento da criação e
+ * contados em {@link TrendingWindow}s de memória limitada; nenhuma consulta ao
+ * {@code tb_tweets} é feita. Os rankings são recalculados a cada
+ * {@code trending.refresh-interval}, de modo que a leitura apenas devolve os
+ * últimos publicados.
+ *
+ * As contagens são aproximadas e consideram apenas os tweets criados desde a
+ * inicialização da aplicação; tweets removidos continuam contados.
+ *
+ * @author Emanuel
+ */
+@Service
+public class TrendingService {
+
+  private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+  /**
+   * Hashtag ou menção: {@code #} ou {@code @} seguido de letras, dígitos ou
+   * sublinhado, sem fazer parte de uma palavra (evita e-mails).
+   */
+  private static final Pattern TOKEN = Pattern.compile("(?<![\\p{L}\\p{N}_])([#@])([\\p{L}\\p{N}_]{1,64})");
+
+  private static final int DEPTH = 4;
+
+  private static final int WIDTH = 2048;
+
+  /**
+   * Janelas de hashtags: 5 minutos, 1 hora e 24 horas.
+   */
+  private final TrendingWindow[] hashtags;
+
+  /**
+   * Janelas de menções, com as mesmas durações.
+   */
+  private final TrendingWindow[] mentions;
+
+  /**
+   * Construtor que cria as janelas.
+   *
+   * @param topK quantidade de itens de cada ranking.
+   */
+  public TrendingService(@Value("${trending.top-k:10}") int topK) {
+    this.hashtags = windows(topK);
+    this.mentions = windows(topK);
+  }
+
+  private static TrendingWindow[] windows(int topK) {
+    return new TrendingWindow[] {
+        new TrendingWindow(Duration.ofMinutes(5), 10, DEPTH, WIDTH, topK),
+        new TrendingWindow(Duration.ofHours(1), 12, DEPTH, WIDTH, topK),
+        new TrendingWindow(Duration.ofHours(24), 24, DEPTH, WIDTH, topK) };
+  }
+
+  /**
+   * Conta as hashtags e menções de um tweet recém-criado.
+   *
+   * @param content conteúdo do tweet.
+   */
+  public void record(String content) {
+    if (content == null || (content.indexOf('#') < 0 && content.indexOf('@') < 0)) {
+      return;
+    }
+    var now = System.currentTimeMillis();
+    var matcher = TOKEN.matcher(content);
+    while (matcher.find()) {
+      var tag = matcher.group(2).toLowerCase(Locale.ROOT);
+      var windows = matcher.group(1).equals("#") ? hashtags : mentions;
+      for (var window : windows) {
+        window.add(tag, now);
+      }
+    }
+  }
+
+  /**
+   * Retorna os últimos rankings de hashtags publicados.
+   *
+   * @return hashtags em alta em cada janela.
+   */
+  public TrendingDto hashtags() {
+    return snapshot(hashtags);
+  }
+
+  /**
+   * Retorna os últimos rankings de menções publicados.
+   *
+   * @return usuários mais mencionados em cada janela.
+   */
+  public TrendingDto mentions() {
+    return snapshot(mentions);
+  }
+
+  private static TrendingDto snapshot(TrendingWindow[] windows) {
+    return new TrendingDto(windows[0].top(), windows[1].top(), windows[2].top());
+  }
+
+  /**
+   * Recalcula todos os rankings imediatamente.
+   */
+  public void refresh() {
+    var now = System.currentTimeMillis();
+    for (var window : hashtags) {
+      window.refresh(now);
+    }
+    for (var window : mentions) {
+      window.refresh(now);
+    }
+  }
+
+  /**
+   * Recálculo agendado: falhas são registradas e tentadas no próximo ciclo.
+   */
+  @Scheduled(fixedDelayString = "${trending.refresh-interval:1s}",
+      initialDelayString = "${trending.refresh-interval:1s}")
+  void refreshQuietly() {
+    try {
+      refresh();
+    } catch (RuntimeException e) {
+      log.warn("trending refresh failed", e);
+    }
+  }
+}
@@ -0,0 +1,296 @@
+package tech.buildrun.springsecurity.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import tech.buildrun.springsecurity.controller.dto.TrendDto;
+
+/**
+ * Contagem aproximada de tokens numa janela deslizante de tempo, com memória
+ * limitada.
+ *
+ * A janela é dividida em baldes de duração fixa, cada um com um sketch
+ * count-min ({@code depth} linhas de {@code width} contadores). Uma ocorrência
+ * incrementa apenas o balde do instante atual, com operações atômicas e sem
+ * locks no caso comum. A contagem de um token na janela é a soma das
+ * estimativas dos baldes: nunca menor que a real, podendo ser maior por
+ * colisões. As colunas de cada linha vêm de um hash de 64 bits dos bytes do
+ * token, partido em duas metades ({@code h1 + linha * h2}): dois tokens só
+ * caem juntos em todas as linhas se colidirem nos 64 bits.
+ *
+ * Os tokens mais frequentes são mantidos como candidatos, em quantidade
+ * limitada; a cada {@link #refresh(long)} os candidatos são reavaliados, o
+ * ranking é publicado e o balde seguinte é zerado antes de entrar em uso. Com
+ * os candidatos completos, um token novo só entra se sua estimativa superar a
+ * do candidato mais fraco, que sai em seu lugar; assim um token em rápida
+ * ascensão não espera a próxima reavaliação. A leitura do ranking apenas
+ * devolve o último publicado.
+ *
+ * @author Emanuel
+ */
+public class TrendingWindow {
+
+  /**
+   * Balde do sketch, identificado pelo período a que pertence.
+   */
+  private static final class Bucket {
+
+    private final AtomicIntegerArray counters;
+
+    /**
+     * Período (instante / duração do balde) cujas contagens o balde contém.
+     */
+    private volatile long period;
+
+    private Bucket(int size) {
+      this.counters = new AtomicIntegerArray(size);
+    }
+  }
+
+  /**
+   * Candidato de menor contagem conhecida, que sai quando um token mais
+   * frequente é admitido.
+   *
+   * @param tag   token candidato.
+   * @param count última contagem conhecida do token.
+   */
+  private record Weakest(String tag, long count) {
+  }
+
+  /**
+   * Duração de cada balde, em milissegundos.
+   */
+  private final long bucketMillis;
+
+  /**
+   * Baldes em anel: os da janela mais um, zerado antes do próximo período.
+   */
+  private final Bucket[] buckets;
+
+  private final int depth;
+
+  private final int width;
+
+  /**
+   * Tamanho do ranking publicado.
+   */
+  private final int topK;
+
+  /**
+   * Quantidade de candidatos mantidos após cada reavaliação; entre duas
+   * reavaliações podem entrar até outros tantos.
+   */
+  private final int capacity;
+
+  /**
+   * Tokens candidatos ao ranking, com a última contagem conhecida de cada um.
+   */
+  private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+  /**
+   * Candidato mais fraco, calculado quando a lista de candidatos enche; null
+   * até lá e após cada reavaliação.
+   */
+  private volatile Weakest weakest;
+
+  /**
+   * Último ranking publicado, do mais frequente ao menos.
+   */
+  private volatile List<TrendDto> top = List.of();
+
+  /**
+   * Cria uma janela vazia.
+   *
+   * @param span        duração da janela.
+   * @param bucketCount quantidade de baldes em que a janela é dividida.
+   * @param depth       linhas do count-min.
+   * @param width       contadores por linha do count-min.
+   * @param topK        tamanho do ranking.
+   */
+  public TrendingWindow(Duration span, int bucketCount, int depth, int width, int topK) {
+    this.bucketMillis = span.toMillis() / bucketCount;
+    this.buckets = new Bucket[bucketCount + 1];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new Bucket(depth * width);
+      buckets[i].period = -1;
+    }
+    this.depth = depth;
+    this.width = width;
+    this.topK = topK;
+    this.capacity = topK * 4;
+  }
+
+  /**
+   * Registra uma ocorrência de um token.
+   *
+   * @param token token normalizado.
+   * @param now   instante da ocorrência, em milissegundos.
+   */
+  public void add(String token, long now) {
+    var period = now / bucketMillis;
+    var bucket = buckets[(int) (period % buckets.length)];
+    if (bucket.period != period) {
+      // Só acontece se nenhum refresh preparou o balde a tempo
+      reset(bucket, period);
+    }
+    var hash = StringHash.hash64(token);
+    var current = Integer.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      current = Math.min(current, bucket.counters.incrementAndGet(row * width + index(hash, row)));
+    }
+    if (candidates.containsKey(token)) {
+      return;
+    }
+    if (candidates.size() < 2 * capacity) {
+      candidates.putIfAbsent(token, (long) current);
+    } else {
+      admit(token, current, now);
+    }
+  }
+
+  /**
+   * Com os candidatos completos, admite um token cuja estimativa supera a do
+   * candidato mais fraco, que sai em seu lugar.
+   *
+   * @param token   token fora dos candidatos.
+   * @param current estimativa do token no balde atual.
+   * @param now     instante da ocorrência, em milissegundos.
+   */
+  private void admit(String token, long current, long now) {
+    var floor = weakest;
+    // A estimativa no balde atual é um limite inferior da estimativa na janela,
+    // e já basta para admitir o token sem consultar os demais baldes
+    var count = floor != null && current > floor.count() ? current : estimate(token, now);
+    if (floor != null && count <= floor.count()) {
+      return;
+    }
+    synchronized (candidates) {
+      if (candidates.containsKey(token)) {
+        return;
+      }
+      if (candidates.size() < 2 * capacity) {
+        candidates.put(token, count);
+        return;
+      }
+      floor = weakest != null ? weakest : findWeakest();
+      if (floor == null) {
+        candidates.put(token, count);
+        return;
+      }
+      if (count > floor.count()) {
+        candidates.remove(floor.tag());
+        candidates.put(token, count);
+        floor = findWeakest();
+      }
+      weakest = floor;
+    }
+  }
+
+  /**
+   * Procura o candidato de menor contagem conhecida.
+   *
+   * @return o candidato, ou null se não houver nenhum.
+   */
+  private Weakest findWeakest() {
+    String tag = null;
+    var count = Long.MAX_VALUE;
+    for (var candidate : candidates.entrySet()) {
+      if (candidate.getValue() < count) {
+        tag = candidate.getKey();
+        count = candidate.getValue();
+      }
+    }
+    return tag != null ? new Weakest(tag, count) : null;
+  }
+
+  /**
+   * Estima a quantidade de ocorrências de um token na janela.
+   *
+   * @param token token normalizado.
+   * @param now   instante atual, em milissegundos.
+   * @return estimativa, nunca menor que a contagem real.
+   */
+  public long estimate(String token, long now) {
+    var current = now / bucketMillis;
+    var hash = StringHash.hash64(token);
+    var total = 0L;
+    for (var bucket : buckets) {
+      var period = bucket.period;
+      if (period <= current - buckets.length + 1 || period > current) {
+        continue;
+      }
+      var min = Integer.MAX_VALUE;
+      for (int row = 0; row < depth; row++) {
+        min = Math.min(min, bucket.counters.get(row * width + index(hash, row)));
+      }
+      total += min;
+    }
+    return total;
+  }
+
+  /**
+   * Reavalia os candidatos, publica o ranking e zera o balde do próximo
+   * período.
+   *
+   * @param now instante atual, em milissegundos.
+   */
+  public void refresh(long now) {
+    var next = now / bucketMillis + 1;
+    reset(buckets[(int) (next % buckets.length)], next);
+
+    var ranked = new ArrayList<TrendDto>(candidates.size());
+    for (var token : candidates.keySet()) {
+      var count = estimate(token, now);
+      if (count > 0) {
+        ranked.add(new TrendDto(token, count));
+        candidates.replace(token, count);
+      } else {
+        candidates.remove(token);
+      }
+    }
+    ranked.sort(Comparator.comparingLong(TrendDto::count).reversed().thenComparing(TrendDto::tag));
+    for (int i = capacity; i < ranked.size(); i++) {
+      candidates.remove(ranked.get(i).tag());
+    }
+    weakest = null;
+    top = List.copyOf(ranked.subList(0, Math.min(topK, ranked.size())));
+  }
+
+  /**
+   * Retorna o ranking publicado no último {@link #refresh(long)}.
+   *
+   * @return tokens mais frequentes na janela, do mais frequente ao menos.
+   */
+  public List<TrendDto> top() {
+    return top;
+  }
+
+  /**
+   * Zera um balde e o associa a um novo período, caso ainda não esteja.
+   */
+  private static void reset(Bucket bucket, long period) {
+    synchronized (bucket) {
+      if (bucket.period != period) {
+        for (int i = 0; i < bucket.counters.length(); i++) {
+          bucket.counters.set(i, 0);
+        }
+        bucket.period = period;
+      }
+    }
+  }
+
+  /**
+   * Coluna de um token numa linha do count-min, derivada das duas metades do
+   * hash de 64 bits.
+   */
+  private int index(long hash, int row) {
+    var h1 = (int) hash;
+    var h2 = (int) (hash >>> 32);
+    return (int) Math.floorMod(h1 + (long) row * h2, width);
+  }
+}
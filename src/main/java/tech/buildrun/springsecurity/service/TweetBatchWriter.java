@@ -0,0 +1,154 @@
+package tech.buildrun.springsecurity.service;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import tech.buildrun.springsecurity.entities.Tweet;
+
+/**
+ * Componente que grava tweets em lote via JDBC.
+ * 
+ * Usa {@link JdbcTemplate#batchUpdate} com um único INSERT parametrizado; com
+ * {@code rewriteBatchedStatements=true} na URL do MySQL o driver transforma o
+ * lote em INSERTs multi-linha. Os tweets já devem ter ID (ver
+ * {@link TweetIdAllocator}) e timestamp de criação preenchidos.
+ * 
+ * No MySQL o Hibernate mapeia {@link UUID} como {@code binary(16)} e grava o
+ * {@link java.time.Instant} de criação como TIMESTAMP em UTC; nos demais bancos
+ * (H2 nos testes) usa o tipo UUID nativo e TIMESTAMP WITH TIME ZONE. As colunas
+ * são gravadas da mesma forma, independentemente do fuso horário da JVM, para
+ * que os tweets em lote se ordenem junto com os gravados pelo JPA. O banco é
+ * detectado uma única vez, na criação do componente.
+ * 
+ * Além das entidades {@link Tweet}, aceita linhas {@link TweetRow} com o ID do
+ * autor já resolvido, usadas pela importação em massa para não criar uma
+ * entidade e um {@link tech.buildrun.springsecurity.entities.User} por tweet.
+ * 
+ * @author Emanuel
+ */
+@Component
+public class TweetBatchWriter {
+
+  /**
+   * INSERT usado para cada linha do lote.
+   */
+  private static final String INSERT_SQL = """
+      insert into tb_tweets (tweet_id, content, creation_time_stamp, user_id)
+      values (?, ?, ?, ?)
+      """;
+
+  /**
+   * Tweet a ser inserido, com o ID do autor no lugar da entidade.
+   * 
+   * @param tweetId           ID do tweet.
+   * @param content           conteúdo do tweet.
+   * @param creationTimeStamp instante de criação.
+   * @param userId            ID do autor.
+   */
+  public record TweetRow(long tweetId, String content, Instant creationTimeStamp, UUID userId) {
+  }
+
+  /**
+   * Template JDBC da aplicação.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Indica o MySQL: UUIDs gravados como 16 bytes e timestamps em UTC.
+   */
+  private final boolean mysql;
+
+  /**
+   * Construtor com injeção do template JDBC.
+   * 
+   * @param jdbcTemplate template JDBC da aplicação.
+   */
+  @Autowired
+  public TweetBatchWriter(JdbcTemplate jdbcTemplate) {
+    this(jdbcTemplate, "MySQL".equalsIgnoreCase(jdbcTemplate.execute(
+        (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName())));
+  }
+
+  /**
+   * Construtor com o banco já conhecido.
+   * 
+   * @param jdbcTemplate template JDBC da aplicação.
+   * @param mysql        indica se o banco é MySQL.
+   */
+  TweetBatchWriter(JdbcTemplate jdbcTemplate, boolean mysql) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.mysql = mysql;
+  }
+
+  /**
+   * Insere todos os tweets informados em um único lote JDBC.
+   * 
+   * Deve ser chamado dentro de uma transação para que o lote seja atômico.
+   * 
+   * @param tweets tweets a serem inseridos.
+   */
+  public void insertAll(List<Tweet> tweets) {
+    var utc = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+    jdbcTemplate.batchUpdate(INSERT_SQL, tweets, tweets.size(), (ps, tweet) -> bind(ps, tweet.getTweetId(),
+        tweet.getContent(), tweet.getCreationTimeStamp(), tweet.getUser().getUserId(), utc));
+  }
+
+  /**
+   * Insere todas as linhas informadas em um único lote JDBC.
+   * 
+   * Deve ser chamado dentro de uma transação para que o lote seja atômico.
+   * 
+   * @param rows linhas a serem inseridas.
+   */
+  public void insertRows(List<TweetRow> rows) {
+    var utc = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+    jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> bind(ps, row.tweetId(), row.content(),
+        row.creationTimeStamp(), row.userId(), utc));
+  }
+
+  /**
+   * Preenche os parâmetros do INSERT de uma linha.
+   */
+  private void bind(PreparedStatement ps, long tweetId, String content, Instant creationTimeStamp, UUID userId,
+      Calendar utc) throws SQLException {
+    ps.setLong(1, tweetId);
+    ps.setString(2, content);
+    // Mesmo binding do Hibernate para Instant: no MySQL, TIMESTAMP com
+    // calendário UTC; nos demais, OffsetDateTime em UTC
+    if (mysql) {
+      ps.setTimestamp(3, Timestamp.from(creationTimeStamp), utc);
+    } else {
+      ps.setObject(3, creationTimeStamp.atOffset(ZoneOffset.UTC));
+    }
+    ps.setObject(4, bindUuid(userId));
+  }
+
+  /**
+   * Converte o UUID para o formato da coluna no banco em uso.
+   * 
+   * @param uuid UUID a ser gravado.
+   * @return o próprio UUID, ou seus 16 bytes no MySQL.
+   */
+  private Object bindUuid(UUID uuid) {
+    if (!mysql) {
+      return uuid;
+    }
+    return ByteBuffer.allocate(16)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+}
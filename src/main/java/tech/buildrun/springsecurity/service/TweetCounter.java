@@ -0,0 +1,146 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+/**
+ * Contador em memória da quantidade total de tweets.
+ *
+ * Substitui o {@code count(*)} sobre {@code tb_tweets} que o {@code /feed}
+ * executava a cada página apenas para preencher o total de elementos e de
+ * páginas. O contador é atualizado pelo {@code TweetController} a cada criação
+ * e remoção e reconciliado com o banco a cada
+ * {@code tweets.counter.reconcile-interval}, corrigindo desvios de escritas
+ * feitas por fora dos controladores ou que falharam depois de contadas.
+ *
+ * O valor é aproximado: escritas concorrentes com a reconciliação podem ficar
+ * fora da contagem até a reconciliação seguinte. Não há reconciliação na
+ * inicialização: a primeira leitura consulta o banco de forma síncrona.
+ *
+ * @author Emanuel
+ */
+@Component
+public class TweetCounter implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(TweetCounter.class);
+
+  /**
+   * Repositório de tweets, consultado apenas na reconciliação.
+   */
+  private final TweetRepository tweetRepository;
+
+  /**
+   * Quantidade atual de tweets; negativo enquanto não reconciliado.
+   */
+  private final AtomicLong count = new AtomicLong(-1);
+
+  /**
+   * Soma absoluta das correções aplicadas pelas reconciliações.
+   */
+  private final LongAdder drift = new LongAdder();
+
+  /**
+   * Construtor com injeção do repositório.
+   *
+   * @param tweetRepository repositório de tweets.
+   */
+  public TweetCounter(TweetRepository tweetRepository) {
+    this.tweetRepository = tweetRepository;
+  }
+
+  /**
+   * Retorna a quantidade de tweets.
+   *
+   * @return quantidade aproximada de tweets.
+   */
+  public long get() {
+    var current = count.get();
+    return current >= 0 ? current : reconcile();
+  }
+
+  /**
+   * Registra um tweet criado.
+   */
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * Registra um tweet removido.
+   */
+  public void decrement() {
+    add(-1);
+  }
+
+  /**
+   * Aplica uma variação à contagem. Ignorada enquanto o contador não foi
+   * reconciliado, pois a reconciliação inicial já a incluirá.
+   *
+   * @param delta variação da quantidade de tweets.
+   */
+  public void add(long delta) {
+    count.getAndUpdate(current -> current >= 0 ? Math.max(0, current + delta) : current);
+  }
+
+  /**
+   * Substitui a contagem pelo valor atual do banco.
+   *
+   * @return quantidade de tweets no banco.
+   */
+  public long reconcile() {
+    var actual = tweetRepository.countActive();
+    var previous = count.getAndSet(actual);
+    if (previous >= 0) {
+      drift.add(Math.abs(actual - previous));
+    }
+    return actual;
+  }
+
+  /**
+   * Reconciliação agendada: falhas são registradas e tentadas no próximo ciclo.
+   */
+  @Scheduled(fixedDelayString = "${tweets.counter.reconcile-interval:5m}",
+      initialDelayString = "${tweets.counter.reconcile-interval:5m}")
+  void reconcileQuietly() {
+    try {
+      reconcile();
+    } catch (RuntimeException e) {
+      log.warn("tweet counter reconciliation failed", e);
+    }
+  }
+
+  /**
+   * Retorna a soma das correções aplicadas pelas reconciliações.
+   *
+   * @return desvio acumulado do contador.
+   */
+  public long getDrift() {
+    return drift.sum();
+  }
+
+  /**
+   * Publica a contagem e o desvio acumulado no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("tweets.count", count, AtomicLong::get)
+        .description("Maintained tweet count served by /feed (-1 until first reconciliation)")
+        .register(registry);
+    FunctionCounter.builder("tweets.count.drift", this, TweetCounter::getDrift)
+        .description("Absolute corrections applied to the tweet count by reconciliation")
+        .register(registry);
+  }
+}
@@ -0,0 +1,56 @@
+package tech.buildrun.springsecurity.service;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.buildrun.springsecurity.entities.Tweet;
+
+/**
+ * Componente que entrega IDs de {@link Tweet} sem persistir a entidade.
+ * 
+ * Reutiliza o próprio gerador configurado no mapeamento de {@link Tweet}
+ * (sequência {@code tweet_seq} com otimizador pooled), de forma que IDs
+ * alocados aqui e IDs atribuídos pelo {@code save} do JPA nunca colidem. Apenas
+ * uma a cada {@code allocationSize} chamadas vai ao banco.
+ * 
+ * @author Emanuel
+ */
+@Component
+public class TweetIdAllocator {
+
+  /**
+   * Session factory do Hibernate, usada para abrir sessões leves de geração.
+   */
+  private final SessionFactoryImplementor sessionFactory;
+
+  /**
+   * Gerador de IDs mapeado para a entidade {@link Tweet}.
+   */
+  private final IdentifierGenerator generator;
+
+  /**
+   * Construtor que resolve o gerador de IDs da entidade {@link Tweet}.
+   * 
+   * @param entityManagerFactory factory JPA da aplicação.
+   */
+  public TweetIdAllocator(EntityManagerFactory entityManagerFactory) {
+    this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    this.generator = (IdentifierGenerator) sessionFactory.getMappingMetamodel()
+        .getEntityDescriptor(Tweet.class)
+        .getGenerator();
+  }
+
+  /**
+   * Aloca o próximo ID de tweet.
+   * 
+   * @return ID único para um novo tweet.
+   */
+  public long allocate() {
+    try (var session = sessionFactory.openStatelessSession()) {
+      return (Long) generator.generate((SharedSessionContractImplementor) session, null);
+    }
+  }
+}
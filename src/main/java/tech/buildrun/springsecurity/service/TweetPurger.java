@@ -0,0 +1,140 @@
+package tech.buildrun.springsecurity.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+/**
+ * Remoção física, em segundo plano, dos tweets removidos logicamente.
+ *
+ * A cada {@code tweets.purge.interval}, apaga os tweets removidos há mais de
+ * {@code tweets.purge.grace}, em lotes de {@code tweets.purge.batch-size}
+ * linhas, cada lote em sua própria transação, para não segurar locks sobre
+ * {@code tb_tweets} por muito tempo. O período de carência evita apagar linhas
+ * que leituras em andamento (ou réplicas atrasadas) ainda enxergam como ativas.
+ *
+ * @author Emanuel
+ */
+@Component
+public class TweetPurger implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(TweetPurger.class);
+
+  /**
+   * Repositório de tweets.
+   */
+  private final TweetRepository tweetRepository;
+
+  /**
+   * Template da transação de cada lote.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Tempo mínimo entre a remoção lógica e a física.
+   */
+  private final Duration grace;
+
+  /**
+   * Quantidade máxima de tweets apagados por lote.
+   */
+  private final int batchSize;
+
+  /**
+   * Quantidade de tweets apagados fisicamente.
+   */
+  private final LongAdder purged = new LongAdder();
+
+  /**
+   * Construtor com injeção do repositório e das propriedades do purge.
+   *
+   * @param tweetRepository    repositório de tweets.
+   * @param transactionManager gerenciador de transações.
+   * @param grace              tempo mínimo entre a remoção lógica e a física.
+   * @param batchSize          quantidade máxima de tweets por lote.
+   */
+  public TweetPurger(TweetRepository tweetRepository, PlatformTransactionManager transactionManager,
+      @Value("${tweets.purge.grace:1m}") Duration grace,
+      @Value("${tweets.purge.batch-size:1000}") int batchSize) {
+    this.tweetRepository = tweetRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.grace = grace;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Apaga os tweets removidos logicamente há mais que o período de carência.
+   *
+   * @return quantidade de tweets apagados.
+   */
+  public long purge() {
+    return purge(Instant.now().minus(grace));
+  }
+
+  /**
+   * Apaga, em lotes, os tweets removidos logicamente antes do instante
+   * informado.
+   *
+   * @param cutoff instante limite da remoção lógica.
+   * @return quantidade de tweets apagados.
+   */
+  public long purge(Instant cutoff) {
+    var total = 0L;
+    while (true) {
+      var deleted = transactionTemplate.execute(status -> {
+        var ids = tweetRepository.findPurgeableIds(cutoff, Limit.of(batchSize));
+        return ids.isEmpty() ? 0 : tweetRepository.purge(ids);
+      });
+      if (deleted == null || deleted == 0) {
+        break;
+      }
+      total += deleted;
+      purged.add(deleted);
+      if (deleted < batchSize) {
+        break;
+      }
+    }
+    if (total > 0) {
+      log.info("purged {} deleted tweets", total);
+    }
+    return total;
+  }
+
+  /**
+   * Purge agendado: falhas são registradas e tentadas no próximo ciclo.
+   */
+  @Scheduled(fixedDelayString = "${tweets.purge.interval:1m}", initialDelayString = "${tweets.purge.interval:1m}")
+  void purgeQuietly() {
+    try {
+      purge();
+    } catch (RuntimeException e) {
+      log.warn("tweet purge failed", e);
+    }
+  }
+
+  /**
+   * Publica a quantidade de tweets apagados no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("tweets.purged", purged, LongAdder::sum)
+        .description("Soft-deleted tweets physically removed by the purger")
+        .register(registry);
+  }
+}
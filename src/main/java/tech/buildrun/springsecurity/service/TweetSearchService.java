@@ -0,0 +1,350 @@
+package tech.buildrun.springsecurity.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import tech.buildrun.springsecurity.controller.dto.FeedItemDto;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+/**
+ * Busca textual sobre o conteúdo dos tweets, servida pelo
+ * {@link InvertedIndex} em memória.
+ *
+ * O índice é mantido incrementalmente pelo {@code TweetController} a cada
+ * criação e remoção. Depois da inicialização, em segundo plano no agendador
+ * compartilhado:
+ * <ol>
+ * <li>o segmento em {@code search.index.path}, se existir, é carregado;</li>
+ * <li>os IDs do segmento são conferidos, em blocos, com os IDs do banco: os
+ * tweets que faltam são indexados e os removidos saem do índice. A conferência
+ * não depende da ordem dos IDs: com o alocador pooled e o write-behind, um ID
+ * menor pode ser gravado depois de um maior já indexado;</li>
+ * <li>os tweets com ID maior que o último indexado são lidos do banco.</li>
+ * </ol>
+ * Sem segmento, o índice é construído do zero a partir do
+ * {@link TweetRepository}.
+ * Até o fim desse processo a busca responde como indisponível.
+ *
+ * O segmento é regravado a cada {@code search.index.snapshot-interval}, se
+ * houve mudanças, e no encerramento. Sem {@code search.index.path} o índice é
+ * sempre reconstruído na inicialização.
+ *
+ * @author Emanuel
+ */
+@Service
+public class TweetSearchService implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(TweetSearchService.class);
+
+  /**
+   * Quantidade máxima de resultados navegáveis por consulta.
+   */
+  private static final int MAX_WINDOW = 1000;
+
+  /**
+   * Resultado de uma busca já renderizado.
+   *
+   * @param items     tweets da página, do mais relevante ao menos.
+   * @param totalHits quantidade total de tweets que satisfazem a busca.
+   */
+  public record Page(List<FeedItemDto> items, long totalHits) {
+  }
+
+  /**
+   * Índice invertido.
+   */
+  private final InvertedIndex index = new InvertedIndex();
+
+  /**
+   * Repositório de tweets.
+   */
+  private final TweetRepository tweetRepository;
+
+  /**
+   * Template das transações somente leitura da carga do índice.
+   */
+  private final TransactionTemplate readOnlyTransaction;
+
+  /**
+   * Arquivo do segmento, ou null sem persistência.
+   */
+  private final Path segmentPath;
+
+  /**
+   * Quantidade de tweets lidos por consulta na carga do índice.
+   */
+  private final int chunkSize;
+
+  /**
+   * Agendador compartilhado, que executa a carga inicial.
+   */
+  private final TaskScheduler taskScheduler;
+
+  /**
+   * Indica se a carga inicial terminou.
+   */
+  private volatile boolean ready;
+
+  /**
+   * Indica se o índice mudou desde a última gravação do segmento.
+   */
+  private volatile boolean dirty;
+
+  /**
+   * Construtor com injeção das dependências e das propriedades do índice.
+   *
+   * @param tweetRepository    repositório de tweets.
+   * @param transactionManager gerenciador de transações.
+   * @param taskScheduler      agendador compartilhado.
+   * @param segmentPath        arquivo do segmento; vazio desliga a
+   *                           persistência.
+   * @param chunkSize          quantidade de tweets lidos por consulta na carga.
+   */
+  public TweetSearchService(TweetRepository tweetRepository, PlatformTransactionManager transactionManager,
+      TaskScheduler taskScheduler,
+      @Value("${search.index.path:}") String segmentPath,
+      @Value("${search.index.chunk-size:5000}") int chunkSize) {
+    this.tweetRepository = tweetRepository;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.taskScheduler = taskScheduler;
+    this.segmentPath = segmentPath.isBlank() ? null : Path.of(segmentPath);
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Agenda a carga inicial; as gravações periódicas do segmento são agendadas
+   * por {@link Scheduled}.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    taskScheduler.schedule(this::load, Instant.now());
+  }
+
+  /**
+   * Indica se o índice está pronto para consultas.
+   *
+   * @return true após a carga inicial.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Indexa um tweet recém-criado.
+   *
+   * @param tweetId ID do tweet.
+   * @param content conteúdo do tweet.
+   */
+  public void index(long tweetId, String content) {
+    index.add(tweetId, content);
+    dirty = true;
+  }
+
+  /**
+   * Remove um tweet do índice.
+   *
+   * @param tweetId ID do tweet.
+   */
+  public void remove(long tweetId) {
+    index.remove(tweetId);
+    dirty = true;
+  }
+
+  /**
+   * Busca tweets que contenham todos os termos da consulta.
+   *
+   * @param query    texto da consulta.
+   * @param page     número da página (zero-based).
+   * @param pageSize quantidade de resultados por página.
+   * @return tweets da página, na ordem do ranking, e o total de resultados.
+   * @throws IllegalStateException    caso a carga inicial não tenha terminado.
+   * @throws IllegalArgumentException caso a página seja inválida ou esteja
+   *                                  além do limite navegável.
+   */
+  public Page search(String query, int page, int pageSize) {
+    if (!ready) {
+      throw new IllegalStateException("search index is still loading");
+    }
+    if (page < 0 || pageSize < 1 || (long) (page + 1) * pageSize > MAX_WINDOW) {
+      throw new IllegalArgumentException("search results are limited to the first " + MAX_WINDOW);
+    }
+
+    var result = index.search(query, page, pageSize);
+    if (result.tweetIds().isEmpty()) {
+      return new Page(List.of(), result.totalHits());
+    }
+
+    // A consulta devolve os itens ordenados por data; reaplica a ordem do ranking
+    var rank = new HashMap<Long, Integer>();
+    for (int i = 0; i < result.tweetIds().size(); i++) {
+      rank.put(result.tweetIds().get(i), i);
+    }
+    var items = tweetRepository.findFeedItemsByIds(result.tweetIds()).stream()
+        .sorted(Comparator.comparing(item -> rank.get(item.tweetId())))
+        .toList();
+    return new Page(items, result.totalHits());
+  }
+
+  /**
+   * Carga inicial: segmento, atualização a partir do banco e verificação.
+   */
+  private void load() {
+    try {
+      var loaded = false;
+      if (segmentPath != null && Files.exists(segmentPath)) {
+        try {
+          index.read(segmentPath);
+          loaded = true;
+          log.info("search segment loaded: {} tweets, {} terms", index.documentCount(), index.termCount());
+        } catch (IOException e) {
+          log.warn("discarding unreadable search segment {}", segmentPath, e);
+          index.clear();
+        }
+      }
+
+      if (loaded) {
+        reconcile();
+      } else {
+        catchUp(0);
+      }
+
+      dirty = true;
+      ready = true;
+      log.info("search index ready: {} tweets, {} terms", index.documentCount(), index.termCount());
+    } catch (RuntimeException e) {
+      log.error("search index load failed", e);
+    }
+  }
+
+  /**
+   * Confere o índice carregado do segmento com o banco, bloco a bloco de IDs
+   * indexados, e indexa os tweets além do último bloco.
+   *
+   * Os IDs de cada bloco do índice são lidos antes dos do banco: um tweet
+   * criado ou removido durante a conferência já foi gravado no banco quando
+   * chega ao índice, e não é tratado como divergência.
+   */
+  private void reconcile() {
+    var after = 0L;
+    var added = 0;
+    var removed = 0;
+    while (true) {
+      var indexed = index.documentIds(after, chunkSize);
+      if (indexed.isEmpty()) {
+        break;
+      }
+      var from = after;
+      var upTo = indexed.get(indexed.size() - 1);
+      var stored = readOnlyTransaction.execute(status -> tweetRepository.findActiveIdsBetween(from, upTo));
+
+      var missing = new HashSet<>(stored);
+      indexed.forEach(missing::remove);
+      var pending = new ArrayList<>(missing);
+      for (int i = 0; i < pending.size(); i += chunkSize) {
+        var ids = pending.subList(i, Math.min(pending.size(), i + chunkSize));
+        var texts = readOnlyTransaction.execute(status -> tweetRepository.findTweetTextsByIds(ids));
+        texts.forEach(tweet -> index.add(tweet.tweetId(), tweet.content()));
+        added += texts.size();
+      }
+      var present = new HashSet<>(stored);
+      for (var tweetId : indexed) {
+        if (!present.contains(tweetId)) {
+          index.remove(tweetId);
+          removed++;
+        }
+      }
+      after = upTo;
+    }
+    catchUp(after);
+    if (added > 0 || removed > 0) {
+      log.info("search segment reconciled: {} tweets added, {} removed", added, removed);
+    }
+  }
+
+  /**
+   * Indexa os tweets do banco com ID maior que o informado.
+   *
+   * @param afterId maior ID já indexado.
+   */
+  private void catchUp(long afterId) {
+    var after = afterId;
+    while (true) {
+      var cursor = after;
+      var chunk = readOnlyTransaction
+          .execute(status -> tweetRepository.findTweetTextsAfter(cursor, Limit.of(chunkSize)));
+      if (chunk == null || chunk.isEmpty()) {
+        return;
+      }
+      chunk.forEach(tweet -> index.add(tweet.tweetId(), tweet.content()));
+      after = chunk.get(chunk.size() - 1).tweetId();
+    }
+  }
+
+  /**
+   * Grava o segmento caso o índice tenha mudado.
+   */
+  @Scheduled(fixedDelayString = "${search.index.snapshot-interval:10m}",
+      initialDelayString = "${search.index.snapshot-interval:10m}")
+  void snapshotIfDirty() {
+    if (segmentPath == null || !ready || !dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      index.write(segmentPath);
+    } catch (IOException | RuntimeException e) {
+      dirty = true;
+      log.warn("search segment write failed", e);
+    }
+  }
+
+  /**
+   * Publica o tamanho do índice no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("search.index.documents", index, InvertedIndex::documentCount)
+        .description("Tweets in the full-text search index")
+        .register(registry);
+    Gauge.builder("search.index.terms", index, InvertedIndex::termCount)
+        .description("Distinct terms in the full-text search index")
+        .register(registry);
+    Gauge.builder("search.index.ready", this, service -> service.isReady() ? 1 : 0)
+        .description("Whether the full-text search index finished loading")
+        .register(registry);
+  }
+
+  /**
+   * Grava o segmento final.
+   */
+  @PreDestroy
+  void shutdown() {
+    snapshotIfDirty();
+  }
+}
@@ -0,0 +1,279 @@
+package tech.buildrun.springsecurity.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tech.buildrun.springsecurity.entities.Tweet;
+
+/**
+ * Buffer de escrita assíncrona (write-behind) para novos tweets.
+ *
+ * Quando habilitado ({@code tweets.write-behind.enabled=true}), os tweets são
+ * enfileirados e gravados por uma única thread em lotes JDBC, disparados quando
+ * o lote atinge {@code tweets.write-behind.batch-size} ou quando o primeiro
+ * tweet do lote espera mais que {@code tweets.write-behind.flush-interval-ms}.
+ * Cada lote é gravado em uma única transação.
+ *
+ * A durabilidade é configurável em {@code tweets.write-behind.durability}:
+ * <ul>
+ * <li>{@code SYNC}: a requisição aguarda a gravação do lote que contém o seu
+ * tweet (group commit);</li>
+ * <li>{@code ASYNC}: a requisição retorna assim que o tweet é enfileirado; um
+ * tweet ainda não gravado pode ser perdido se o processo cair.</li>
+ * </ul>
+ *
+ * Com a fila cheia, novos tweets são rejeitados com
+ * {@link RejectedExecutionException} em vez de bloquear a thread da requisição.
+ *
+ * @author Emanuel
+ */
+@Component
+public class TweetWriteBehindBuffer {
+
+  private static final Logger log = LoggerFactory.getLogger(TweetWriteBehindBuffer.class);
+
+  /**
+   * Garantia de durabilidade oferecida ao cliente.
+   */
+  public enum Durability {
+    /**
+     * A requisição aguarda a gravação do lote.
+     */
+    SYNC,
+
+    /**
+     * A requisição retorna assim que o tweet é enfileirado.
+     */
+    ASYNC
+  }
+
+  /**
+   * Tweet aguardando gravação e o futuro completado quando o lote é gravado.
+   *
+   * @param tweet   tweet com ID e timestamp já atribuídos.
+   * @param flushed futuro completado após o commit do lote.
+   */
+  private record Pending(Tweet tweet, CompletableFuture<Void> flushed) {
+  }
+
+  /**
+   * Gravador JDBC em lote.
+   */
+  private final TweetBatchWriter batchWriter;
+
+  /**
+   * Template de transação usado para gravar cada lote atomicamente.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Indica se o modo write-behind está habilitado.
+   */
+  private final boolean enabled;
+
+  /**
+   * Tamanho máximo de um lote.
+   */
+  private final int batchSize;
+
+  /**
+   * Tempo máximo, em milissegundos, que o primeiro tweet de um lote espera.
+   */
+  private final long flushIntervalMillis;
+
+  /**
+   * Durabilidade oferecida ao cliente.
+   */
+  private final Durability durability;
+
+  /**
+   * Fila limitada de tweets pendentes.
+   */
+  private final BlockingQueue<Pending> queue;
+
+  /**
+   * Thread responsável por montar e gravar os lotes.
+   */
+  private Thread flusher;
+
+  /**
+   * Sinaliza o encerramento da thread de gravação.
+   */
+  private volatile boolean running;
+
+  /**
+   * Construtor com injeção das dependências e das propriedades do modo
+   * write-behind.
+   *
+   * @param batchWriter         gravador JDBC em lote.
+   * @param transactionTemplate template de transação.
+   * @param enabled             se o modo write-behind está habilitado.
+   * @param batchSize           tamanho máximo de um lote.
+   * @param flushIntervalMillis espera máxima do primeiro tweet de um lote.
+   * @param queueCapacity       capacidade da fila de pendentes.
+   * @param durability          durabilidade oferecida ao cliente.
+   */
+  public TweetWriteBehindBuffer(TweetBatchWriter batchWriter, TransactionTemplate transactionTemplate,
+      @Value("${tweets.write-behind.enabled:false}") boolean enabled,
+      @Value("${tweets.write-behind.batch-size:500}") int batchSize,
+      @Value("${tweets.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+      @Value("${tweets.write-behind.queue-capacity:10000}") int queueCapacity,
+      @Value("${tweets.write-behind.durability:SYNC}") Durability durability) {
+    this.batchWriter = batchWriter;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.durability = durability;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+  }
+
+  /**
+   * Inicia a thread de gravação quando o modo está habilitado.
+   */
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    flusher = Thread.ofPlatform().name("tweet-write-behind").daemon().start(this::runLoop);
+  }
+
+  /**
+   * Encerra a thread de gravação, gravando o que ainda estiver na fila.
+   *
+   * @throws InterruptedException caso a espera pelo encerramento seja
+   *                              interrompida.
+   */
+  @PreDestroy
+  void stop() throws InterruptedException {
+    if (flusher == null) {
+      return;
+    }
+    running = false;
+    flusher.interrupt();
+    flusher.join(TimeUnit.SECONDS.toMillis(10));
+  }
+
+  /**
+   * Indica se o modo write-behind está habilitado.
+   *
+   * @return true se os tweets devem passar por este buffer.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enfileira um tweet para gravação em lote.
+   *
+   * Com durabilidade {@code SYNC}, bloqueia até o commit do lote que contém o
+   * tweet e propaga a falha de gravação, se houver.
+   *
+   * @param tweet tweet com ID, autor e timestamp de criação já atribuídos.
+   * @return futuro completado no commit do lote que contém o tweet, ou com a
+   *         falha da gravação; já completado com durabilidade {@code SYNC}.
+   * @throws RejectedExecutionException caso a fila esteja cheia.
+   */
+  public CompletableFuture<Void> write(Tweet tweet) {
+    var pending = new Pending(tweet, new CompletableFuture<>());
+    if (!running || !queue.offer(pending)) {
+      throw new RejectedExecutionException("tweet write-behind queue is full");
+    }
+
+    if (durability == Durability.SYNC) {
+      try {
+        pending.flushed().join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+    return pending.flushed();
+  }
+
+  /**
+   * Laço da thread de gravação: monta lotes por tamanho ou tempo e os grava.
+   */
+  private void runLoop() {
+    var batch = new ArrayList<Pending>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        var first = running ? queue.take() : queue.poll();
+        if (first == null) {
+          break;
+        }
+        batch.add(first);
+
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize && running) {
+          var remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            break;
+          }
+          var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        // Encerramento: grava o lote corrente e esvazia a fila
+        queue.drainTo(batch, batchSize - batch.size());
+      }
+
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Grava um lote em uma única transação.
+   *
+   * Se o lote falhar (por exemplo, um autor inexistente violando a chave
+   * estrangeira), cada tweet é regravado individualmente para que apenas as
+   * linhas inválidas falhem.
+   *
+   * @param batch lote de tweets pendentes.
+   */
+  private void flush(List<Pending> batch) {
+    var tweets = batch.stream().map(Pending::tweet).toList();
+    try {
+      transactionTemplate.executeWithoutResult(status -> batchWriter.insertAll(tweets));
+      batch.forEach(pending -> pending.flushed().complete(null));
+      return;
+    } catch (RuntimeException e) {
+      log.warn("write-behind batch of {} tweets failed, retrying row by row", batch.size(), e);
+    }
+
+    for (var pending : batch) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> batchWriter.insertAll(List.of(pending.tweet())));
+        pending.flushed().complete(null);
+      } catch (RuntimeException e) {
+        log.error("write-behind insert of tweet {} failed", pending.tweet().getTweetId(), e);
+        pending.flushed().completeExceptionally(e);
+      }
+    }
+  }
+}
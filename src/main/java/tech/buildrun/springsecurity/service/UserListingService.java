@@ -0,0 +1,184 @@
+package tech.buildrun.springsecurity.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.buildrun.springsecurity.controller.dto.UserItemDto;
+import tech.buildrun.springsecurity.repository.UserRepository;
+
+/**
+ * Listagem de usuários em streaming, com memória constante.
+ *
+ * Os usuários são lidos em blocos de {@code users.listing.chunk-size}, por
+ * keyset sobre o ID (sem OFFSET), cada bloco em sua própria transação somente
+ * leitura, e escritos na resposta assim que lidos. Nenhum momento mantém mais
+ * que um bloco em memória, independente do tamanho de {@code tb_users}.
+ *
+ * Cada usuário é projetado em {@link UserItemDto}: ID, nome e roles, sem o
+ * hash da senha. O prefixo do username é comparado literalmente: {@code %} e
+ * {@code _} não funcionam como curingas.
+ *
+ * A resposta não traz um cursor próprio: o ID do último usuário recebido é o
+ * {@code after} da página seguinte, e uma página com menos de {@code limit}
+ * usuários é a última.
+ *
+ * @author Emanuel
+ */
+@Service
+public class UserListingService {
+
+  /**
+   * Filtros e posição da listagem.
+   *
+   * @param after    ID do último usuário já entregue, ou null para o início.
+   * @param username prefixo do nome de usuário, ou null.
+   * @param role     nome de uma role que o usuário deve ter, ou null.
+   * @param limit    quantidade máxima de usuários; zero lista todos.
+   */
+  public record Query(UUID after, String username, String role, long limit) {
+  }
+
+  /**
+   * Repositório de usuários.
+   */
+  private final UserRepository userRepository;
+
+  /**
+   * Template das transações somente leitura de cada bloco.
+   */
+  private final TransactionTemplate readOnlyTransaction;
+
+  /**
+   * Serializador JSON da aplicação.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Quantidade de usuários lidos por consulta.
+   */
+  private final int chunkSize;
+
+  /**
+   * Construtor com injeção das dependências.
+   *
+   * @param userRepository     repositório de usuários.
+   * @param transactionManager gerenciador de transações.
+   * @param objectMapper       serializador JSON.
+   * @param chunkSize          quantidade de usuários lidos por consulta.
+   */
+  public UserListingService(UserRepository userRepository, PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper, @Value("${users.listing.chunk-size:500}") int chunkSize) {
+    this.userRepository = userRepository;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Escreve a listagem como um array JSON.
+   *
+   * @param query filtros e posição da listagem.
+   * @param out   corpo da resposta.
+   * @throws IOException caso a escrita falhe.
+   */
+  public void writeJson(Query query, OutputStream out) throws IOException {
+    try (var generator = objectMapper.createGenerator(out)) {
+      generator.writeStartArray();
+      write(query, generator, false);
+      generator.writeEndArray();
+    }
+  }
+
+  /**
+   * Escreve a listagem como NDJSON, um usuário por linha.
+   *
+   * @param query filtros e posição da listagem.
+   * @param out   corpo da resposta.
+   * @throws IOException caso a escrita falhe.
+   */
+  public void writeNdjson(Query query, OutputStream out) throws IOException {
+    try (var generator = objectMapper.createGenerator(out)) {
+      write(query, generator, true);
+    }
+  }
+
+  /**
+   * Lê os blocos e os escreve no gerador, liberando cada bloco para o cliente.
+   *
+   * @param query     filtros e posição da listagem.
+   * @param generator gerador JSON da resposta.
+   * @param lines     se cada usuário deve terminar em quebra de linha.
+   * @throws IOException caso a escrita falhe.
+   */
+  private void write(Query query, JsonGenerator generator, boolean lines) throws IOException {
+    var username = query.username() != null ? escapeLike(query.username()) : null;
+    var after = query.after();
+    var remaining = query.limit() > 0 ? query.limit() : Long.MAX_VALUE;
+
+    while (remaining > 0) {
+      var size = (int) Math.min(chunkSize, remaining);
+      var cursor = after;
+      var chunk = readOnlyTransaction
+          .execute(status -> withRoles(userRepository.findUserItems(cursor, username, query.role(),
+              Limit.of(size))));
+
+      for (var item : chunk) {
+        generator.writeObject(item);
+        if (lines) {
+          generator.writeRaw('\n');
+        }
+      }
+      generator.flush();
+
+      if (chunk.size() < size) {
+        return;
+      }
+      after = chunk.get(chunk.size() - 1).userId();
+      remaining -= chunk.size();
+    }
+  }
+
+  /**
+   * Escapa os curingas do LIKE com {@code !}, o caractere de escape da
+   * consulta.
+   *
+   * @param prefix prefixo informado pelo cliente.
+   * @return prefixo que casa apenas literalmente.
+   */
+  static String escapeLike(String prefix) {
+    return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+  }
+
+  /**
+   * Preenche as roles de um bloco de usuários com uma única consulta.
+   *
+   * @param chunk bloco de usuários sem roles.
+   * @return o mesmo bloco, com as roles preenchidas.
+   */
+  private List<UserItemDto> withRoles(List<UserItemDto> chunk) {
+    if (chunk.isEmpty()) {
+      return chunk;
+    }
+    var roles = new HashMap<UUID, List<String>>();
+    for (var row : userRepository.findRoleNames(chunk.stream().map(UserItemDto::userId).toList())) {
+      roles.computeIfAbsent(row.userId(), id -> new ArrayList<>()).add(row.roleName());
+    }
+    return chunk.stream()
+        .map(item -> new UserItemDto(item.userId(), item.username(), roles.getOrDefault(item.userId(), List.of())))
+        .toList();
+  }
+}
@@ -0,0 +1,410 @@
+package tech.buildrun.springsecurity.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tech.buildrun.springsecurity.repository.UserRepository;
+
+/**
+ * Conjunto probabilístico dos usernames cadastrados, consultado antes do banco
+ * no login.
+ *
+ * Um {@link BloomFilter} é construído em segundo plano na inicialização a
+ * partir de {@code tb_users} e recebe cada novo username no cadastro. Quando o
+ * filtro responde que o username não existe, a consulta ao banco do login é
+ * evitada: tentativas com usernames inexistentes (por exemplo, de robôs de
+ * credential stuffing) não chegam ao banco. O cadastro sempre confirma no
+ * banco, pois a constraint única é a palavra final sobre a existência.
+ *
+ * Enquanto o filtro não foi construído, todas as consultas respondem "talvez"
+ * e seguem para o banco. O filtro é reconstruído, com novo dimensionamento, a
+ * cada {@code users.bloom.rebuild-interval} e sempre que a quantidade de
+ * inserções passa da capacidade nominal.
+ *
+ * Os usernames são comparados sem distinção de maiúsculas e acentos, como na
+ * collation do banco; isso só pode aumentar os falsos positivos.
+ *
+ * Usuários cadastrados por outras instâncias da aplicação são lidos pela
+ * coluna {@code created_at} a cada {@code users.bloom.sync-interval}, relendo
+ * os últimos {@code users.bloom.sync-overlap} para cobrir commits atrasados e
+ * diferenças de relógio entre as instâncias; até lá, o login desses usuários
+ * pode ser recusado. Usuários inseridos por SQL direto sem {@code created_at}
+ * só são reconhecidos na reconstrução seguinte.
+ *
+ * @author Emanuel
+ */
+@Service
+public class UsernameFilter implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(UsernameFilter.class);
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  /**
+   * Repositório de usuários, lido apenas na construção do filtro.
+   */
+  private final UserRepository userRepository;
+
+  /**
+   * Template das transações somente leitura da construção.
+   */
+  private final TransactionTemplate readOnlyTransaction;
+
+  /**
+   * Capacidade mínima do filtro.
+   */
+  private final long minExpectedInsertions;
+
+  /**
+   * Taxa de falsos positivos desejada.
+   */
+  private final double fpp;
+
+  /**
+   * Quantidade de usernames lidos por consulta na construção.
+   */
+  private final int chunkSize;
+
+  /**
+   * Período relido a cada leitura dos cadastros de outras instâncias.
+   */
+  private final Duration syncOverlap;
+
+  /**
+   * Instante até o qual os cadastros já foram lidos; null até a primeira
+   * construção.
+   */
+  private volatile Instant syncedUpTo;
+
+  /**
+   * Agendador compartilhado, que executa a construção inicial e as
+   * reconstruções por capacidade.
+   */
+  private final TaskScheduler taskScheduler;
+
+  /**
+   * Serializa as construções e as sincronizações, que rodam em threads
+   * diferentes do agendador.
+   */
+  private final ReentrantLock maintenance = new ReentrantLock();
+
+  /**
+   * Filtro em uso; null até a primeira construção.
+   */
+  private volatile BloomFilter filter;
+
+  /**
+   * Filtro em construção, que também recebe os cadastros concorrentes.
+   */
+  private volatile BloomFilter building;
+
+  /**
+   * Consultas respondidas como inexistentes, sem o banco.
+   */
+  private final LongAdder absent = new LongAdder();
+
+  /**
+   * Consultas respondidas como "talvez", encaminhadas ao banco.
+   */
+  private final LongAdder maybe = new LongAdder();
+
+  /**
+   * Consultas encaminhadas ao banco que não encontraram o username.
+   */
+  private final LongAdder falsePositives = new LongAdder();
+
+  /**
+   * Quantidade de construções concluídas.
+   */
+  private final LongAdder rebuilds = new LongAdder();
+
+  /**
+   * Duração da última construção, em milissegundos.
+   */
+  private volatile long lastRebuildMillis;
+
+  /**
+   * Indica uma reconstrução por capacidade já agendada.
+   */
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+  /**
+   * Construtor com injeção do repositório e das propriedades do filtro.
+   *
+   * @param userRepository        repositório de usuários.
+   * @param transactionManager    gerenciador de transações.
+   * @param taskScheduler         agendador compartilhado.
+   * @param minExpectedInsertions capacidade mínima do filtro.
+   * @param fpp                   taxa de falsos positivos desejada.
+   * @param chunkSize             usernames lidos por consulta na construção.
+   * @param syncOverlap           período relido a cada leitura dos cadastros
+   *                              de outras instâncias.
+   */
+  public UsernameFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+      TaskScheduler taskScheduler,
+      @Value("${users.bloom.expected-insertions:1000000}") long minExpectedInsertions,
+      @Value("${users.bloom.fpp:0.01}") double fpp,
+      @Value("${users.bloom.chunk-size:5000}") int chunkSize,
+      @Value("${users.bloom.sync-overlap:10s}") Duration syncOverlap) {
+    this.userRepository = userRepository;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.taskScheduler = taskScheduler;
+    this.minExpectedInsertions = minExpectedInsertions;
+    this.fpp = fpp;
+    this.chunkSize = chunkSize;
+    this.syncOverlap = syncOverlap;
+  }
+
+  /**
+   * Agenda a construção inicial depois dos {@code CommandLineRunner}s (e,
+   * portanto, do usuário admin padrão). As reconstruções periódicas e as
+   * sincronizações são agendadas por {@link Scheduled}.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    taskScheduler.schedule(this::rebuildQuietly, Instant.now());
+  }
+
+  /**
+   * Indica se o filtro já foi construído.
+   *
+   * @return true após a primeira construção.
+   */
+  public boolean isReady() {
+    return filter != null;
+  }
+
+  /**
+   * Verifica se um username pode existir.
+   *
+   * @param username username informado no login ou cadastro.
+   * @return false se o username certamente não está cadastrado.
+   */
+  public boolean mightExist(String username) {
+    var current = filter;
+    if (current == null || username == null) {
+      return true;
+    }
+    var result = current.mightContain(normalize(username));
+    (result ? maybe : absent).increment();
+    return result;
+  }
+
+  /**
+   * Registra que uma consulta ao banco autorizada pelo filtro não encontrou o
+   * username.
+   */
+  public void falsePositive() {
+    if (filter != null) {
+      falsePositives.increment();
+    }
+  }
+
+  /**
+   * Registra um username recém-cadastrado. Deve ser chamado depois do commit,
+   * para que uma construção concorrente não perca o username.
+   *
+   * @param username username cadastrado.
+   */
+  public void add(String username) {
+    var normalized = normalize(username);
+    var next = building;
+    if (next != null) {
+      next.put(normalized);
+    }
+    var current = filter;
+    if (current != null) {
+      current.put(normalized);
+      if (current.insertions() > current.expectedInsertions() && rebuildPending.compareAndSet(false, true)) {
+        taskScheduler.schedule(this::rebuildQuietly, Instant.now());
+      }
+    }
+  }
+
+  /**
+   * Constrói um novo filtro a partir de {@code tb_users} e o coloca em uso.
+   */
+  public void rebuild() {
+    maintenance.lock();
+    try {
+      build();
+    } finally {
+      maintenance.unlock();
+    }
+  }
+
+  /**
+   * Corpo de {@link #rebuild()}, executado sob o lock de manutenção.
+   */
+  private void build() {
+    var start = System.nanoTime();
+    var startedAt = Instant.now();
+    var total = readOnlyTransaction.execute(status -> userRepository.count());
+    var next = new BloomFilter(Math.max(minExpectedInsertions, 2 * (total == null ? 0 : total)), fpp);
+    building = next;
+    try {
+      UUID after = null;
+      while (true) {
+        var cursor = after;
+        var chunk = readOnlyTransaction
+            .execute(status -> userRepository.findUserItems(cursor, null, null, Limit.of(chunkSize)));
+        if (chunk == null || chunk.isEmpty()) {
+          break;
+        }
+        chunk.forEach(user -> next.put(normalize(user.username())));
+        after = chunk.get(chunk.size() - 1).userId();
+      }
+      filter = next;
+      syncedUpTo = startedAt;
+    } finally {
+      building = null;
+      rebuildPending.set(false);
+    }
+    lastRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    rebuilds.increment();
+    log.info("username filter built: {} users, {} bits, {} hashes in {} ms", next.insertions(), next.bitCount(),
+        next.hashCount(), lastRebuildMillis);
+  }
+
+  /**
+   * Acrescenta ao filtro os usernames cadastrados desde a última leitura,
+   * inclusive por outras instâncias.
+   */
+  public void sync() {
+    maintenance.lock();
+    try {
+      var since = syncedUpTo;
+      if (since == null) {
+        return;
+      }
+      var now = Instant.now();
+      var usernames = readOnlyTransaction
+          .execute(status -> userRepository.findUsernamesCreatedSince(since.minus(syncOverlap)));
+      if (usernames != null) {
+        var current = filter;
+        for (var username : usernames) {
+          // Os relidos já estão no filtro e não contam como novas inserções
+          if (current == null || !current.mightContain(normalize(username))) {
+            add(username);
+          }
+        }
+      }
+      syncedUpTo = now;
+    } finally {
+      maintenance.unlock();
+    }
+  }
+
+  /**
+   * Sincronização agendada: falhas são registradas e a leitura seguinte cobre
+   * o mesmo período.
+   */
+  @Scheduled(fixedDelayString = "${users.bloom.sync-interval:1s}",
+      initialDelayString = "${users.bloom.sync-interval:1s}")
+  void syncQuietly() {
+    try {
+      sync();
+    } catch (RuntimeException e) {
+      log.warn("username filter sync failed", e);
+    }
+  }
+
+  /**
+   * Reconstrução agendada: falhas são registradas e o filtro anterior é
+   * mantido.
+   */
+  @Scheduled(fixedDelayString = "${users.bloom.rebuild-interval:1h}",
+      initialDelayString = "${users.bloom.rebuild-interval:1h}")
+  void rebuildQuietly() {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      log.warn("username filter rebuild failed", e);
+    }
+  }
+
+  /**
+   * Normaliza o username como a collation do banco: sem acentos e em
+   * minúsculas.
+   */
+  private static String normalize(String username) {
+    var decomposed = Normalizer.normalize(username, Normalizer.Form.NFD);
+    return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Publica o dimensionamento, a taxa estimada de falsos positivos e as
+   * contagens de consultas no Micrometer.
+   *
+   * @param registry registro de métricas.
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("users.bloom.bits", this, service -> service.sizing(BloomFilter::bitCount))
+        .description("Size of the username Bloom filter in bits (0 until built)")
+        .register(registry);
+    Gauge.builder("users.bloom.hashes", this, service -> service.sizing(BloomFilter::hashCount))
+        .description("Hash functions of the username Bloom filter")
+        .register(registry);
+    Gauge.builder("users.bloom.capacity", this, service -> service.sizing(BloomFilter::expectedInsertions))
+        .description("Insertions the username Bloom filter was sized for")
+        .register(registry);
+    Gauge.builder("users.bloom.insertions", this, service -> service.sizing(BloomFilter::insertions))
+        .description("Usernames inserted into the current Bloom filter")
+        .register(registry);
+    Gauge.builder("users.bloom.expected.fpp", this, service -> service.sizing(BloomFilter::expectedFpp))
+        .description("False-positive rate estimated from the Bloom filter fill ratio")
+        .register(registry);
+    FunctionCounter.builder("users.bloom.checks", absent, LongAdder::sum).tag("result", "absent")
+        .description("Username checks answered by the Bloom filter")
+        .register(registry);
+    FunctionCounter.builder("users.bloom.checks", maybe, LongAdder::sum).tag("result", "maybe")
+        .description("Username checks answered by the Bloom filter")
+        .register(registry);
+    FunctionCounter.builder("users.bloom.false.positives", falsePositives, LongAdder::sum)
+        .description("Bloom filter hits that the database did not confirm")
+        .register(registry);
+    FunctionCounter.builder("users.bloom.rebuilds", rebuilds, LongAdder::sum)
+        .description("Completed builds of the username Bloom filter")
+        .register(registry);
+    TimeGauge.builder("users.bloom.rebuild.duration", this, TimeUnit.MILLISECONDS,
+        service -> service.lastRebuildMillis)
+        .description("Duration of the last username Bloom filter build")
+        .register(registry);
+  }
+
+  /**
+   * Lê uma medida do filtro em uso, ou zero enquanto não construído.
+   */
+  private double sizing(ToDoubleFunction<BloomFilter> metric) {
+    var current = filter;
+    return current == null ? 0 : metric.applyAsDouble(current);
+  }
+}
@@ -0,0 +1,111 @@
+package tech.buildrun.springsecurity.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+class CachingJwtDecoderTests {
+
+	private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+	private final AtomicInteger verifications = new AtomicInteger();
+
+	private final JwtDecoder delegate = token -> {
+		verifications.incrementAndGet();
+		if (token.startsWith("bad")) {
+			throw new BadJwtException("invalid signature");
+		}
+		return Jwt.withTokenValue(token)
+				.header("alg", "RS256")
+				.subject("user")
+				.issuedAt(NOW)
+				.expiresAt(NOW.plusSeconds(300))
+				.build();
+	};
+
+	@Test
+	void repeatedTokenSkipsVerification() {
+		var decoder = new CachingJwtDecoder(delegate, 10, Duration.ofMinutes(5), clockAt(NOW));
+
+		decoder.decode("token-a");
+		decoder.decode("token-a");
+		decoder.decode("token-a");
+
+		assertThat(verifications).hasValue(1);
+		assertThat(decoder.getHits()).isEqualTo(2);
+		assertThat(decoder.getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredEntryIsVerifiedAgain() {
+		var clock = new MutableClock(NOW);
+		var decoder = new CachingJwtDecoder(delegate, 10, Duration.ofMinutes(5), clock);
+
+		decoder.decode("token-a");
+		clock.instant = NOW.plusSeconds(301);
+		decoder.decode("token-a");
+
+		assertThat(verifications).hasValue(2);
+		assertThat(decoder.getEvictions()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidTokensAreNeverCached() {
+		var decoder = new CachingJwtDecoder(delegate, 10, Duration.ofMinutes(5), clockAt(NOW));
+
+		assertThatThrownBy(() -> decoder.decode("bad-token")).isInstanceOf(BadJwtException.class);
+		assertThatThrownBy(() -> decoder.decode("bad-token")).isInstanceOf(BadJwtException.class);
+
+		assertThat(verifications).hasValue(2);
+	}
+
+	@Test
+	void fullCacheEvictsToStayBounded() {
+		var decoder = new CachingJwtDecoder(delegate, 4, Duration.ofMinutes(5), clockAt(NOW));
+
+		for (int i = 0; i < 20; i++) {
+			decoder.decode("token-" + i);
+		}
+
+		assertThat(decoder.getEvictions()).isPositive();
+	}
+
+	private static Clock clockAt(Instant instant) {
+		return Clock.fixed(instant, ZoneOffset.UTC);
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
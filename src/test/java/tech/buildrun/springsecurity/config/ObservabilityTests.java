@@ -0,0 +1,44 @@
+package tech.buildrun.springsecurity.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ObservabilityTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void feedRequestIsTimedPerHandlerRepositoryAndSession() throws Exception {
+		mockMvc.perform(get("/feed").with(jwt())).andExpect(status().isOk());
+
+		var handler = meterRegistry.find("http.server.requests").tag("uri", "/feed").timer();
+		assertThat(handler).isNotNull();
+		assertThat(handler.count()).isPositive();
+
+		var repository = meterRegistry.find("spring.data.repository.invocations")
+				.tag("repository", "TweetRepository")
+				.tag("method", "findFeed")
+				.timer();
+		assertThat(repository).isNotNull();
+		assertThat(repository.count()).isPositive();
+
+		assertThat(meterRegistry.find("hibernate.statements").functionCounter()).isNotNull();
+	}
+
+}
@@ -0,0 +1,120 @@
+package tech.buildrun.springsecurity.config;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tech.buildrun.springsecurity.entities.Tweet;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.FeedVersion;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:rwprimary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"datasource.replicas.urls=" + ReplicaRoutingTests.REPLICA_URL,
+		"datasource.replicas.lag-query=select lag_seconds from replica_lag",
+		"datasource.replicas.max-lag=5s",
+		"datasource.replicas.health-check-interval=1h" })
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:rwreplica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ReplicaPool replicaPool;
+
+	@Autowired
+	private TweetRepository tweetRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private FeedVersion feedVersion;
+
+	private String adminId;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		// Segundo banco embarcado fazendo o papel da réplica, com um tweet que só
+		// existe nele
+		try (var connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				var statement = connection.createStatement()) {
+			statement.execute("create table if not exists tb_users (user_id uuid primary key, username varchar(255), password varchar(255), created_at timestamp(6) with time zone)");
+			statement.execute("create table if not exists tb_tweets (tweet_id bigint primary key, content varchar(255), creation_time_stamp timestamp(6) with time zone, user_id uuid, deleted_at timestamp(6) with time zone)");
+			statement.execute("create table if not exists replica_lag (lag_seconds double)");
+			statement.execute("delete from tb_tweets");
+			statement.execute("delete from tb_users");
+			statement.execute("delete from replica_lag");
+			statement.execute("insert into tb_users values ('00000000-0000-0000-0000-000000000001', 'replica', 'x', null)");
+			statement.execute("insert into tb_tweets values (1, 'from replica', current_timestamp, '00000000-0000-0000-0000-000000000001', null)");
+			statement.execute("insert into replica_lag values (0)");
+		}
+		replicaPool.checkReplicas();
+
+		tweetRepository.deleteAll();
+		var admin = userRepository.findByUsername("admin").orElseThrow();
+		adminId = admin.getUserId().toString();
+		var tweet = new Tweet();
+		tweet.setUser(admin);
+		tweet.setContent("from primary");
+		tweetRepository.save(tweet);
+		// Escritas direto no repositório não passam pelo controller, que
+		// invalidaria as páginas em cache
+		feedVersion.bump();
+	}
+
+	@Test
+	void feedIsServedByTheReplica() throws Exception {
+		mockMvc.perform(get("/feed").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos[0].content").value("from replica"));
+	}
+
+	@Test
+	void authorReadsOwnWriteFromThePrimary() throws Exception {
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"just posted\"}")
+				.with(jwt().jwt(token -> token.subject(adminId))))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/feed").with(jwt().jwt(token -> token.subject(adminId))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos[0].content").value("just posted"));
+
+		mockMvc.perform(get("/feed").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos[0].content").value("from replica"));
+	}
+
+	@Test
+	void laggingReplicaFallsBackToThePrimary() throws Exception {
+		try (var connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				var statement = connection.createStatement()) {
+			statement.execute("update replica_lag set lag_seconds = 60");
+		}
+		replicaPool.checkReplicas();
+
+		mockMvc.perform(get("/feed").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos[0].content").value("from primary"));
+	}
+
+}
@@ -0,0 +1,57 @@
+package tech.buildrun.springsecurity.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:virtualthreads;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.threads.virtual.enabled=true", "diagnostics.virtual-threads.pinned-threshold=5ms",
+		"management.endpoints.web.exposure.include=virtualthreads" })
+@AutoConfigureMockMvc
+class VirtualThreadDiagnosticsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VirtualThreadDiagnostics virtualThreadDiagnostics;
+
+	private final Object monitor = new Object();
+
+	@Test
+	void pinningReportsTheFrameHoldingTheMonitor() throws Exception {
+		Thread.ofVirtual().start(this::parkHoldingMonitor).join();
+
+		for (int i = 0; i < 100 && virtualThreadDiagnostics.getPinnedCount() == 0; i++) {
+			Thread.sleep(50);
+		}
+		assertThat(virtualThreadDiagnostics.getPinnedCount()).isPositive();
+
+		mockMvc.perform(get("/actuator/virtualthreads").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.virtualThreadsEnabled").value(true))
+				.andExpect(jsonPath("$.pinningDetectionActive").value(true))
+				.andExpect(jsonPath("$.recentPinnedEvents[0].frame")
+						.value(Matchers.startsWith(getClass().getName() + ".parkHoldingMonitor:")));
+	}
+
+	private void parkHoldingMonitor() {
+		synchronized (monitor) {
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+		}
+	}
+
+}
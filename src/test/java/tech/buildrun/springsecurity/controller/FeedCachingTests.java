@@ -0,0 +1,189 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.FeedVersion;
+import tech.buildrun.springsecurity.service.TweetCounter;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:feedcache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"feed.etag.settle-window=0s" })
+@AutoConfigureMockMvc
+class FeedCachingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TweetCounter tweetCounter;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private FeedVersion feedVersion;
+
+	@MockitoSpyBean
+	private TweetRepository tweetRepository;
+
+	@BeforeEach
+	void setUp() {
+		tweetCounter.reconcile();
+	}
+
+	@Test
+	void matchingEtagIsAnsweredWithoutTheDatabase() throws Exception {
+		var etag = mockMvc.perform(get("/feed").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, private"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotBlank();
+
+		var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		var connections = meterRegistry.get("hikaricp.connections.usage").timer();
+		var borrowed = connections.count();
+
+		mockMvc.perform(get("/feed").header(HttpHeaders.IF_NONE_MATCH, etag).with(jwt()))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(header().exists(HttpHeaders.CACHE_CONTROL));
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(connections.count()).isEqualTo(borrowed);
+	}
+
+	@Test
+	void newTweetChangesTheEtag() throws Exception {
+		var etag = mockMvc.perform(get("/feed").with(jwt()))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		var authorId = userRepository.findByUsername("admin").orElseThrow().getUserId().toString();
+
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"novo\"}")
+				.with(jwt().jwt(token -> token.subject(authorId))))
+				.andExpect(status().isOk());
+
+		var next = mockMvc.perform(get("/feed").header(HttpHeaders.IF_NONE_MATCH, etag).with(jwt()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(next).isNotEqualTo(etag);
+	}
+
+	@Test
+	void hotPageIsServedPreEncodedInTheNegotiatedFormat() throws Exception {
+		var cbor = MediaType.parseMediaType("application/cbor");
+		var first = mockMvc.perform(get("/feed").accept(cbor).with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(cbor))
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+				.andReturn().getResponse().getContentAsByteArray();
+		var feed = new CBORMapper().readTree(first);
+		assertThat(feed.get("totalElemments").asLong()).isEqualTo(tweetCounter.get());
+
+		var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		var second = mockMvc.perform(get("/feed").accept(cbor).with(jwt()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(second).isEqualTo(first);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		mockMvc.perform(get("/feed").accept(MediaType.APPLICATION_XML).with(jwt()))
+				.andExpect(status().isNotAcceptable());
+	}
+
+	@Test
+	void stampedeWaitersHoldNoConnection() throws Exception {
+		var pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+		var loading = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		var feed = tweetRepository.findFeed(PageRequest.of(0, 10));
+		clearInvocations(tweetRepository);
+		doAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return feed;
+		}).when(tweetRepository).findFeed(any());
+		feedVersion.bump();
+
+		var statuses = new int[8];
+		var clients = new ArrayList<Thread>();
+		for (var i = 0; i < statuses.length; i++) {
+			var client = i;
+			clients.add(Thread.ofPlatform().start(() -> {
+				try {
+					statuses[client] = mockMvc.perform(get("/feed").with(jwt())).andReturn().getResponse().getStatus();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+		try {
+			assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+			// Todos parados: um na consulta, os demais esperando por ela no cache
+			var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (!clients.stream().allMatch(client -> client.getState() == Thread.State.WAITING)
+					&& System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+
+			assertThat(pool.getActiveConnections()).isEqualTo(1);
+		} finally {
+			release.countDown();
+			for (var client : clients) {
+				client.join();
+			}
+		}
+		assertThat(statuses).containsOnly(200);
+		verify(tweetRepository).findFeed(any());
+	}
+
+}
@@ -0,0 +1,103 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tech.buildrun.springsecurity.repository.UserRepository;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:feedstream;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1")
+// Sem impressão do resultado: os eventos são escritos por outra thread enquanto
+// o MockMvc leria a resposta
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class FeedStreamTests {
+
+	private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private String authorId;
+
+	@BeforeEach
+	void setUp() {
+		authorId = userRepository.findByUsername("admin").orElseThrow().getUserId().toString();
+	}
+
+	@Test
+	void createdTweetsAreStreamed() throws Exception {
+		var stream = subscribe(null);
+
+		tweet("ao vivo");
+
+		var content = await(stream, body -> body.contains("ao vivo"));
+		assertThat(content).contains("event:tweet").contains("\"username\":\"admin\"");
+	}
+
+	@Test
+	void reconnectionReplaysMissedEvents() throws Exception {
+		var stream = subscribe(null);
+		tweet("perdido 1");
+		tweet("perdido 2");
+		var content = await(stream, body -> body.contains("perdido 2"));
+
+		var matcher = EVENT_ID.matcher(content);
+		assertThat(matcher.find()).isTrue();
+		var firstId = matcher.group(1);
+
+		var replay = await(subscribe(firstId), body -> body.contains("perdido 2"));
+		assertThat(replay).doesNotContain("perdido 1").doesNotContain("event:reset");
+
+		var stale = await(subscribe("999999999"), body -> body.contains("event:reset"));
+		assertThat(stale).doesNotContain("perdido");
+	}
+
+	private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+		var request = get("/feed/stream").accept(MediaType.TEXT_EVENT_STREAM).with(jwt());
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", lastEventId);
+		}
+		return mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse();
+	}
+
+	private void tweet(String content) throws Exception {
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"" + content + "\"}")
+				.with(jwt().jwt(token -> token.subject(authorId))))
+				.andExpect(status().isOk());
+	}
+
+	private static String await(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+		for (int i = 0; i < 100; i++) {
+			var content = response.getContentAsString();
+			if (condition.test(content)) {
+				return content;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("stream did not receive the expected events: " + response.getContentAsString());
+	}
+
+}
@@ -0,0 +1,82 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tech.buildrun.springsecurity.service.PasswordHashingExecutor;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:hashingsaturation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"security.password-hashing.pool-size=1", "security.password-hashing.queue-capacity=2" })
+@AutoConfigureMockMvc
+class PasswordHashingSaturationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void saturatedPoolRejectsCredentialChecksRightAway() throws Exception {
+		var release = new CountDownLatch(1);
+		try {
+			// Uma operação em execução e duas na fila
+			for (int i = 0; i < 3; i++) {
+				passwordHashingExecutor.submit(() -> {
+					try {
+						return release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				});
+			}
+			var rejectedBefore = passwordHashingExecutor.getRejected();
+			assertThatThrownBy(() -> passwordHashingExecutor.submit(() -> true))
+					.isInstanceOf(RejectedExecutionException.class);
+
+			var started = System.nanoTime();
+			mockMvc.perform(post("/users")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"username\": \"while-saturated\", \"password\": \"pw\"}"))
+					.andExpect(request().asyncNotStarted())
+					.andExpect(status().isServiceUnavailable());
+			mockMvc.perform(post("/login")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"username\": \"admin\", \"password\": \"wrong\"}"))
+					.andExpect(request().asyncNotStarted())
+					.andExpect(status().isServiceUnavailable());
+			assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+
+			assertThat(meterRegistry.get("executor.active").tag("name", "password.hashing").gauge().value())
+					.isEqualTo(1);
+			assertThat(meterRegistry.get("executor.queued").tag("name", "password.hashing").gauge().value())
+					.isEqualTo(2);
+			assertThat(meterRegistry.get("password.hashing.rejected").functionCounter().count())
+					.isEqualTo(rejectedBefore + 3);
+		} finally {
+			release.countDown();
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.buildrun.springsecurity.controller.dto.LoginResponse;
+import tech.buildrun.springsecurity.entities.Role;
+import tech.buildrun.springsecurity.entities.User;
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.RoleRegistry;
+import tech.buildrun.springsecurity.service.UsernameFilter;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UsernameFilter usernameFilter;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private JwtDecoder jwtDecoder;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private BCryptPasswordEncoder bCryptPasswordEncoder;
+
+	@BeforeEach
+	void waitForFilter() throws InterruptedException {
+		for (int i = 0; i < 100 && !usernameFilter.isReady(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat(usernameFilter.isReady()).isTrue();
+	}
+
+	@Test
+	void unknownUsernameIsRejectedWithoutQuery() throws Exception {
+		var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"no-such-user\", \"password\": \"x\"}"))
+				.andExpect(status().isUnauthorized());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void signupOfUnknownUsernameSkipsTheLookup() throws Exception {
+		var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		var signup = mockMvc.perform(post("/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"unseen-user\", \"password\": \"pw\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(signup)).andExpect(status().isOk());
+
+		assertThat(statistics.getQueries()).noneMatch(query -> query.contains("username"));
+	}
+
+	@Test
+	void newUserCanLogInRightAway() throws Exception {
+		var signup = mockMvc.perform(post("/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"fresh-user\", \"password\": \"pw\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(signup)).andExpect(status().isOk());
+
+		var login = mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"FRESH-USER\", \"password\": \"pw\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(login))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accessToken").isNotEmpty());
+	}
+
+	@Test
+	void userCreatedByAnotherInstanceCanLogIn() throws Exception {
+		// Cadastro gravado direto no banco, como faria outra instância
+		transactionTemplate.executeWithoutResult(status -> {
+			var user = new User();
+			user.setUsername("other-instance");
+			user.setPassword(bCryptPasswordEncoder.encode("pw"));
+			user.setRoles(Set.of(roleRegistry.reference(Role.Values.BASIC)));
+			userRepository.save(user);
+		});
+		usernameFilter.sync();
+
+		var login = mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"other-instance\", \"password\": \"pw\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(login)).andExpect(status().isOk());
+	}
+
+	@Test
+	void refreshUsesCurrentRoles() throws Exception {
+		var tokens = signUpAndLogIn("refresh-promoted");
+		assertThat(scope(tokens)).isEqualTo("BASIC");
+
+		var userId = userRepository.findByUsername("refresh-promoted").orElseThrow().getUserId();
+		jdbcTemplate.update("insert into tb_users_roles (user_id, role_id) values (?, ?)", userId,
+				roleRegistry.id(Role.Values.ADMIN));
+
+		var refreshed = refresh(tokens.refreshToken());
+		assertThat(scope(refreshed).split(" ")).containsExactlyInAnyOrder("ADMIN", "BASIC");
+	}
+
+	@Test
+	void removedUserCannotRefresh() throws Exception {
+		var tokens = signUpAndLogIn("refresh-removed");
+
+		var userId = userRepository.findByUsername("refresh-removed").orElseThrow().getUserId();
+		jdbcTemplate.update("delete from tb_users_roles where user_id = ?", userId);
+		jdbcTemplate.update("delete from tb_users where user_id = ?", userId);
+
+		mockMvc.perform(refreshRequest(tokens.refreshToken())).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesItsFamily() throws Exception {
+		var tokens = signUpAndLogIn("refresh-reused");
+		var rotated = refresh(tokens.refreshToken());
+
+		mockMvc.perform(refreshRequest(tokens.refreshToken())).andExpect(status().isUnauthorized());
+		mockMvc.perform(refreshRequest(rotated.refreshToken())).andExpect(status().isUnauthorized());
+	}
+
+	private LoginResponse signUpAndLogIn(String username) throws Exception {
+		var credentials = "{\"username\": \"" + username + "\", \"password\": \"pw\"}";
+		var signup = mockMvc.perform(post("/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(credentials))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(signup)).andExpect(status().isOk());
+
+		var login = mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(credentials))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		var response = mockMvc.perform(asyncDispatch(login))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(response, LoginResponse.class);
+	}
+
+	private LoginResponse refresh(String refreshToken) throws Exception {
+		var response = mockMvc.perform(refreshRequest(refreshToken))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(response, LoginResponse.class);
+	}
+
+	private static MockHttpServletRequestBuilder refreshRequest(String refreshToken) {
+		return post("/token/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"refreshToken\": \"" + refreshToken + "\"}");
+	}
+
+	private String scope(LoginResponse tokens) {
+		return jwtDecoder.decode(tokens.accessToken()).getClaimAsString("scope");
+	}
+
+}
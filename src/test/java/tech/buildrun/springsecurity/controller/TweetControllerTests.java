@@ -0,0 +1,234 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.buildrun.springsecurity.entities.Tweet;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.TweetCounter;
+import tech.buildrun.springsecurity.service.TrendingService;
+import tech.buildrun.springsecurity.service.TweetPurger;
+import tech.buildrun.springsecurity.service.TweetSearchService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TweetControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TweetRepository tweetRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TweetCounter tweetCounter;
+
+	@Autowired
+	private TweetSearchService tweetSearchService;
+
+	@Autowired
+	private TrendingService trendingService;
+
+	@Autowired
+	private TweetPurger tweetPurger;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private UUID authorId;
+
+	@BeforeEach
+	void setUp() {
+		tweetRepository.deleteAll();
+
+		// Autor criado pelo AdminUserConfig na inicialização
+		var user = userRepository.findByUsername("admin").orElseThrow();
+		authorId = user.getUserId();
+
+		for (int i = 0; i < 25; i++) {
+			var tweet = new Tweet();
+			tweet.setUser(user);
+			tweet.setContent("tweet " + i);
+			tweetRepository.save(tweet);
+		}
+		tweetCounter.reconcile();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void feedPageRunsSingleSelectWithoutCount() throws Exception {
+		mockMvc.perform(get("/feed").param("pageSize", "10").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos.length()").value(10))
+				.andExpect(jsonPath("$.feedItemDtos[0].username").value("admin"))
+				.andExpect(jsonPath("$.totalElemments").value(25))
+				.andExpect(jsonPath("$.totalPages").value(3));
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void feedCursorPageRunsSingleSelect() throws Exception {
+		mockMvc.perform(get("/feed").param("after", "").param("pageSize", "10").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos.length()").value(10))
+				.andExpect(jsonPath("$.nextCursor").isNotEmpty());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void invalidPageSizesAreRejected() throws Exception {
+		for (var pageSize : new String[] { "0", "-1", "101" }) {
+			mockMvc.perform(get("/feed").param("after", "").param("pageSize", pageSize).with(jwt()))
+					.andExpect(status().isBadRequest());
+			mockMvc.perform(get("/feed").param("pageSize", pageSize).with(jwt()))
+					.andExpect(status().isBadRequest());
+		}
+		mockMvc.perform(get("/feed").param("page", "-1").with(jwt()))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/timeline").param("page", "-1").with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/timeline").param("pageSize", "0").with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isBadRequest());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void createTweetDoesNotLoadTheAuthor() throws Exception {
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"hello\"}")
+				.with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.tweetId").isNumber());
+
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+		assertThat(tweetCounter.get()).isEqualTo(26);
+	}
+
+	@Test
+	void createTweetForMissingAuthorIsRejected() throws Exception {
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"hello\"}")
+				.with(jwt().jwt(token -> token.subject(UUID.randomUUID().toString()))))
+				.andExpect(status().isUnprocessableEntity());
+
+		assertThat(tweetCounter.get()).isEqualTo(25);
+	}
+
+	@Test
+	void createdTweetIsSearchable() throws Exception {
+		for (int i = 0; i < 100 && !tweetSearchService.isReady(); i++) {
+			Thread.sleep(50);
+		}
+
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"Buscável na Timeline\"}")
+				.with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/search").param("q", "buscavel timeline").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalHits").value(1))
+				.andExpect(jsonPath("$.feedItemDtos[0].content").value("Buscável na Timeline"))
+				.andExpect(jsonPath("$.feedItemDtos[0].username").value("admin"));
+	}
+
+	@Test
+	void hashtagsOfCreatedTweetsTrend() throws Exception {
+		for (var content : new String[] { "#Java e #spring", "mais #java", "e-mail a@b.com para @admin" }) {
+			mockMvc.perform(post("/tweets")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"content\": \"" + content + "\"}")
+					.with(jwt().jwt(token -> token.subject(authorId.toString()))))
+					.andExpect(status().isOk());
+		}
+		trendingService.refresh();
+
+		mockMvc.perform(get("/trending").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.lastFiveMinutes[0].tag").value("java"))
+				.andExpect(jsonPath("$.lastFiveMinutes[0].count").value(2))
+				.andExpect(jsonPath("$.lastDay[0].tag").value("java"));
+		mockMvc.perform(get("/trending").param("type", "mentions").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.lastHour.length()").value(1))
+				.andExpect(jsonPath("$.lastHour[0].tag").value("admin"));
+	}
+
+	@Test
+	void onlyAuthorOrAdminDeletesTweet() throws Exception {
+		var tweetId = tweetRepository.findAll().get(0).getTweetId();
+		var stranger = UUID.randomUUID().toString();
+
+		mockMvc.perform(delete("/tweets/{id}", tweetId)
+				.with(jwt().jwt(token -> token.subject(stranger)).authorities(new SimpleGrantedAuthority("SCOPE_BASIC"))))
+				.andExpect(status().isForbidden());
+
+		statistics.clear();
+		mockMvc.perform(delete("/tweets/{id}", tweetId)
+				.with(jwt().jwt(token -> token.subject(stranger)).authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"))))
+				.andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(tweetRepository.existsByTweetIdAndDeletedAtIsNull(tweetId)).isFalse();
+
+		mockMvc.perform(delete("/tweets/{id}", tweetId)
+				.with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void deletedTweetLeavesFeedAndIsPurged() throws Exception {
+		var tweetId = tweetRepository.findAll().get(0).getTweetId();
+
+		mockMvc.perform(delete("/tweets/{id}", tweetId)
+				.with(jwt().jwt(token -> token.subject(authorId.toString()))))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/feed").param("pageSize", "50").with(jwt()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.feedItemDtos.length()").value(24))
+				.andExpect(jsonPath("$.totalElemments").value(24));
+		assertThat(tweetCounter.reconcile()).isEqualTo(24);
+
+		assertThat(tweetPurger.purge(Instant.now().plusSeconds(1))).isEqualTo(1);
+		assertThat(tweetRepository.existsById(tweetId)).isFalse();
+	}
+
+}
@@ -0,0 +1,109 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.buildrun.springsecurity.repository.TweetRepository;
+import tech.buildrun.springsecurity.service.TweetCounter;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:tweetimport;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"tweets.import.chunk-size=2" })
+@AutoConfigureMockMvc
+class TweetImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TweetRepository tweetRepository;
+
+	@Autowired
+	private TweetCounter tweetCounter;
+
+	@BeforeEach
+	void setUp() {
+		tweetRepository.deleteAll();
+		tweetCounter.reconcile();
+	}
+
+	@Test
+	void importsValidRowsAndReportsFailures() throws Exception {
+		var body = String.join("\n",
+				"{\"username\": \"admin\", \"content\": \"first\", \"createdAt\": \"2020-01-01T00:00:00Z\"}",
+				"{not json",
+				"{\"username\": \"ghost\", \"content\": \"who?\"}",
+				"",
+				"{\"username\": \"ADMIN\", \"content\": \"second\"}",
+				"{\"username\": \"admin\"}",
+				"{\"username\": \"admin\", \"content\": \"" + "x".repeat(256) + "\"}",
+				"{\"username\": \"admin\", \"content\": \"third\"}");
+
+		var events = importNdjson(body);
+
+		assertThat(events).filteredOn(event -> event.has("error"))
+				.extracting(event -> event.get("line").asLong())
+				.containsExactly(2L, 3L, 6L, 7L);
+		var summary = events.get(events.size() - 1);
+		assertThat(summary.get("done").asBoolean()).isTrue();
+		assertThat(summary.get("lines").asLong()).isEqualTo(8);
+		assertThat(summary.get("imported").asLong()).isEqualTo(3);
+		assertThat(summary.get("failed").asLong()).isEqualTo(4);
+
+		assertThat(tweetRepository.count()).isEqualTo(3);
+		assertThat(tweetCounter.get()).isEqualTo(3);
+	}
+
+	@Test
+	void importRequiresAdmin() throws Exception {
+		mockMvc.perform(post("/tweets/import")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.content("{\"username\": \"admin\", \"content\": \"x\"}")
+				.with(jwt()))
+				.andExpect(status().isForbidden());
+	}
+
+	private List<JsonNode> importNdjson(String body) throws Exception {
+		var result = mockMvc.perform(post("/tweets/import")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_NDJSON)
+				.content(body)
+				.with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		var response = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		var events = new ArrayList<JsonNode>();
+		for (var line : response.split("\n")) {
+			if (!line.isBlank()) {
+				events.add(objectMapper.readTree(line));
+			}
+		}
+		return events;
+	}
+
+}
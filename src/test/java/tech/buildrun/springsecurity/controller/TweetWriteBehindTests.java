@@ -0,0 +1,88 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.TweetCounter;
+import tech.buildrun.springsecurity.service.TweetSearchService;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:writebehind;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"tweets.write-behind.enabled=true",
+		"tweets.write-behind.durability=ASYNC" })
+@AutoConfigureMockMvc
+class TweetWriteBehindTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TweetCounter tweetCounter;
+
+	@Autowired
+	private TweetSearchService tweetSearchService;
+
+	private String authorId;
+
+	@BeforeEach
+	void setUp() throws InterruptedException {
+		authorId = userRepository.findByUsername("admin").orElseThrow().getUserId().toString();
+		await(tweetSearchService::isReady);
+	}
+
+	@Test
+	void asyncTweetIsPublishedAfterItsBatchCommits() throws Exception {
+		var before = tweetCounter.get();
+
+		tweet("gravado depois", authorId);
+
+		await(() -> tweetSearchService.search("gravado depois", 0, 10).totalHits() == 1);
+		assertThat(tweetCounter.get()).isEqualTo(before + 1);
+	}
+
+	@Test
+	void failedAsyncTweetHasNoSideEffects() throws Exception {
+		var before = tweetCounter.get();
+
+		// Autor inexistente: a chave estrangeira rejeita o insert do lote
+		tweet("nunca gravado", UUID.randomUUID().toString());
+		tweet("gravado em seguida", authorId);
+
+		await(() -> tweetSearchService.search("gravado em seguida", 0, 10).totalHits() == 1);
+		assertThat(tweetCounter.get()).isEqualTo(before + 1);
+		assertThat(tweetSearchService.search("nunca gravado", 0, 10).totalHits()).isZero();
+	}
+
+	private void tweet(String content, String subject) throws Exception {
+		mockMvc.perform(post("/tweets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"content\": \"" + content + "\"}")
+				.with(jwt().jwt(token -> token.subject(subject))))
+				.andExpect(status().isOk());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+			Thread.sleep(50);
+		}
+		assertThat(condition.getAsBoolean()).isTrue();
+	}
+
+}
@@ -0,0 +1,182 @@
+package tech.buildrun.springsecurity.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.buildrun.springsecurity.controller.dto.UserItemDto;
+import tech.buildrun.springsecurity.entities.Role;
+import tech.buildrun.springsecurity.entities.User;
+import tech.buildrun.springsecurity.repository.RoleRepository;
+import tech.buildrun.springsecurity.repository.UserRepository;
+import tech.buildrun.springsecurity.service.PasswordHashingExecutor;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:userlisting;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"users.listing.chunk-size=2" })
+@AutoConfigureMockMvc
+class UserControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+
+	@BeforeEach
+	void setUp() {
+		transactionTemplate.executeWithoutResult(status -> {
+			var basic = roleRepository.findByName(Role.Values.BASIC.name());
+			for (int i = 0; i < 5; i++) {
+				if (userRepository.findByUsername("list-" + i).isEmpty()) {
+					var user = new User();
+					user.setUsername("list-" + i);
+					user.setPassword("x");
+					user.setRoles(Set.of(basic));
+					userRepository.save(user);
+				}
+			}
+		});
+	}
+
+	@Test
+	void listsSlimUsersAsJsonArray() throws Exception {
+		perform(get("/users").param("username", "list-").with(admin()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].username").exists())
+				.andExpect(jsonPath("$[0].roles[0]").value("basic"))
+				.andExpect(jsonPath("$[0].password").doesNotExist());
+	}
+
+	@Test
+	void ndjsonPagesWithCursor() throws Exception {
+		var first = ndjson(perform(get("/users").param("username", "list-").param("limit", "3")
+				.accept(MediaType.APPLICATION_NDJSON).with(admin())));
+		assertThat(first).hasSize(3);
+
+		var rest = ndjson(perform(get("/users").param("username", "list-")
+				.param("after", first.get(2).userId().toString())
+				.accept(MediaType.APPLICATION_NDJSON).with(admin())));
+		assertThat(rest).hasSize(2);
+
+		var all = new ArrayList<>(first);
+		all.addAll(rest);
+		assertThat(all).extracting(UserItemDto::username)
+				.containsExactlyInAnyOrder("list-0", "list-1", "list-2", "list-3", "list-4");
+	}
+
+	@Test
+	void usernamePrefixWildcardsMatchLiterally() throws Exception {
+		perform(get("/users").param("username", "list_").with(admin()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+		perform(get("/users").param("username", "%").with(admin()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void filtersByRole() throws Exception {
+		perform(get("/users").param("role", "ADMIN").with(admin()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].username").value("admin"));
+	}
+
+	@Test
+	void listingRequiresAdmin() throws Exception {
+		mockMvc.perform(get("/users").with(jwt())).andExpect(status().isForbidden());
+	}
+
+	@Test
+	void concurrentSignupOfSameUsernameIsUnprocessable() throws Exception {
+		// Segura o pool BCrypt para que o outro cadastro grave entre a
+		// verificação e o INSERT
+		var release = new CountDownLatch(1);
+		for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+			passwordHashingExecutor.submit(() -> {
+				try {
+					return release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			});
+		}
+
+		var signup = mockMvc.perform(post("/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\": \"racing-user\", \"password\": \"pw\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		transactionTemplate.executeWithoutResult(status -> {
+			var user = new User();
+			user.setUsername("racing-user");
+			user.setPassword("x");
+			user.setRoles(Set.of(roleRepository.findByName(Role.Values.BASIC.name())));
+			userRepository.save(user);
+		});
+		release.countDown();
+
+		mockMvc.perform(asyncDispatch(signup)).andExpect(status().isUnprocessableEntity());
+	}
+
+	private static org.springframework.test.web.servlet.request.RequestPostProcessor admin() {
+		return jwt().authorities(new SimpleGrantedAuthority("SCOPE_ADMIN"));
+	}
+
+	private ResultActions perform(RequestBuilder request) throws Exception {
+		var result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(result));
+	}
+
+	private List<UserItemDto> ndjson(ResultActions result) throws Exception {
+		var body = result.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		var items = new ArrayList<UserItemDto>();
+		for (var line : body.split("\n")) {
+			if (!line.isBlank()) {
+				items.add(objectMapper.readValue(line, UserItemDto.class));
+			}
+		}
+		return items;
+	}
+
+}
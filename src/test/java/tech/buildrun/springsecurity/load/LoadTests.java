@@ -0,0 +1,336 @@
+package tech.buildrun.springsecurity.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.OperatingSystemMXBean;
+
+import tech.buildrun.springsecurity.controller.dto.CreateTweetDto;
+import tech.buildrun.springsecurity.controller.dto.CreateUserDto;
+import tech.buildrun.springsecurity.controller.dto.LoginRequest;
+import tech.buildrun.springsecurity.controller.dto.LoginResponse;
+import tech.buildrun.springsecurity.controller.dto.RefreshTokenRequest;
+
+/**
+ * Teste de carga contra a aplicação completa, em um H2 embarcado no lugar do
+ * MySQL.
+ *
+ * Não roda no {@code ./mvnw test} comum; para executar:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=LoadTests -Dload.enabled=true [-Dload.rate=500 -Dload.duration=60]
+ * </pre>
+ *
+ * Usuários e tweets são criados pelos próprios endpoints ({@code POST /users},
+ * {@code /login}, {@code POST /tweets}). A carga é de laço aberto: as
+ * requisições são disparadas na taxa configurada independente das respostas, e
+ * a latência é medida a partir do instante em que cada requisição deveria ter
+ * saído, para que um servidor lento não esconda a fila que ele mesmo criou.
+ *
+ * Ao final são impressos vazão e percentis por operação, o tempo de CPU do
+ * processo por requisição na janela medida (servidor e gerador de carga
+ * dividem a JVM, então o valor serve para comparar execuções, não como custo
+ * absoluto) e as distribuições completas do HdrHistogram são gravadas em
+ * {@code target/load/<op>.hgrm}.
+ *
+ * Comparações usuais:
+ *
+ * <pre>
+ * # custo do login (BCrypt) contra a renovação por refresh token
+ * ./mvnw test -Dtest=LoadTests -Dload.enabled=true -Dload.mix=login=100
+ * ./mvnw test -Dtest=LoadTests -Dload.enabled=true -Dload.mix=refresh=100
+ *
+ * # threads de plataforma contra threads virtuais
+ * ./mvnw test -Dtest=LoadTests -Dload.enabled=true -Dspring.threads.virtual.enabled=false
+ * ./mvnw test -Dtest=LoadTests -Dload.enabled=true -Dspring.threads.virtual.enabled=true
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.generate_statistics=false" })
+@EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+class LoadTests {
+
+	private enum Operation {
+		LOGIN, REFRESH, TWEET, FEED
+	}
+
+	private static final String PASSWORD = "load-test";
+
+	private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	// Parâmetros da carga, sobrescrevíveis por -Dload.*
+	private final int rate = Integer.getInteger("load.rate", 50);
+
+	private final int durationSeconds = Integer.getInteger("load.duration", 30);
+
+	private final int warmupSeconds = Integer.getInteger("load.warmup", 5);
+
+	private final int users = Integer.getInteger("load.users", 20);
+
+	private final int seedTweets = Integer.getInteger("load.tweets", 1000);
+
+	// Cadeias de refresh por usuário: cada token só pode ser usado uma vez, e
+	// reusá-lo revoga a cadeia, então cada cadeia tem no máximo uma renovação
+	// em voo
+	private final int refreshChains = Integer.getInteger("load.refresh-chains", 5);
+
+	private final String mix = System.getProperty("load.mix", "login=5,refresh=5,tweet=15,feed=75");
+
+	private final double maxErrorRatio = Double.parseDouble(System.getProperty("load.max-error-ratio", "0.01"));
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private ExecutorService executor;
+
+	private HttpClient client;
+
+	private final List<String> tokens = new ArrayList<>();
+
+	private final LinkedBlockingQueue<String> refreshTokens = new LinkedBlockingQueue<>();
+
+	private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+	private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		client = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(5)).build();
+		for (var operation : Operation.values()) {
+			recorders.put(operation, new Recorder(MAX_LATENCY_NANOS, 3));
+			errors.put(operation, new LongAdder());
+		}
+
+		for (int i = 0; i < users; i++) {
+			var username = "load-" + i;
+			expectOk(send(post("/users", new CreateUserDto(username, PASSWORD), null)));
+			for (int chain = 0; chain < refreshChains; chain++) {
+				var login = send(post("/login", new LoginRequest(username, PASSWORD), null));
+				expectOk(login);
+				var response = objectMapper.readValue(login.body(), LoginResponse.class);
+				tokens.add(response.accessToken());
+				refreshTokens.add(response.refreshToken());
+			}
+		}
+
+		var seeding = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+		for (int i = 0; i < seedTweets; i++) {
+			var request = post("/tweets", new CreateTweetDto("seed tweet " + i), tokens.get(i % tokens.size()));
+			seeding.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+		}
+		for (var response : seeding) {
+			expectOk(response.join());
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void mixedTraffic() throws Exception {
+		var weights = parseMix();
+		var totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+		var intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		var start = System.nanoTime();
+		var measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		var end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+		var inFlight = new ArrayList<CompletableFuture<?>>();
+		var cpu = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+		var cpuFrom = -1L;
+
+		for (long i = 0;; i++) {
+			var intended = start + i * intervalNanos;
+			if (intended >= end) {
+				break;
+			}
+			var wait = intended - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			var operation = pick(weights, totalWeight);
+			var measured = intended >= measureFrom;
+			if (measured && cpuFrom < 0) {
+				cpuFrom = cpu.getProcessCpuTime();
+			}
+			inFlight.add(send(operation)
+					.whenComplete((response, failure) -> {
+						if (!measured) {
+							return;
+						}
+						recorders.get(operation).recordValue(Math.min(System.nanoTime() - intended, MAX_LATENCY_NANOS));
+						if (failure != null || response.statusCode() >= 400) {
+							errors.get(operation).increment();
+						}
+					}));
+		}
+		CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+				.exceptionally(failure -> null)
+				.get(1, TimeUnit.MINUTES);
+		var cpuNanos = cpu.getProcessCpuTime() - cpuFrom;
+
+		var requests = 0L;
+		var failed = 0L;
+		var out = System.out;
+		out.printf("%nLoad test: %d req/s offered for %ds (warm-up %ds), %d users, %d seed tweets, %s threads%n",
+				rate, durationSeconds, warmupSeconds, users, seedTweets, virtualThreads ? "virtual" : "platform");
+		out.printf("%-7s %8s %7s %9s %9s %9s %9s %9s %9s%n", "op", "count", "errors", "req/s", "p50 ms", "p90 ms",
+				"p99 ms", "p99.9 ms", "max ms");
+		Files.createDirectories(Path.of("target", "load"));
+		for (var operation : Operation.values()) {
+			var histogram = recorders.get(operation).getIntervalHistogram();
+			var errorCount = errors.get(operation).sum();
+			requests += histogram.getTotalCount();
+			failed += errorCount;
+			print(out, operation, histogram, errorCount);
+			writeDistribution(operation, histogram);
+		}
+		out.printf("total   %8d %7d %9.1f%n", requests, failed, (double) requests / durationSeconds);
+		out.printf("process CPU %.0f ms, %.3f ms/request%n%n", millis(cpuNanos), millis(cpuNanos) / requests);
+
+		assertThat(requests).isPositive();
+		assertThat((double) failed / requests).isLessThanOrEqualTo(maxErrorRatio);
+	}
+
+	private CompletableFuture<HttpResponse<String>> send(Operation operation) throws IOException {
+		if (operation != Operation.REFRESH) {
+			return client.sendAsync(request(operation), HttpResponse.BodyHandlers.ofString());
+		}
+		var refreshToken = refreshTokens.poll();
+		if (refreshToken == null) {
+			// Todas as cadeias com renovação em voo: conta como erro
+			return CompletableFuture.failedFuture(new IllegalStateException("no idle refresh token"));
+		}
+		var request = post("/token/refresh", new RefreshTokenRequest(refreshToken), null);
+		return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+			if (response.statusCode() == 200) {
+				try {
+					refreshTokens.add(objectMapper.readValue(response.body(), LoginResponse.class).refreshToken());
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return response;
+		});
+	}
+
+	private HttpRequest request(Operation operation) throws IOException {
+		var random = ThreadLocalRandom.current();
+		return switch (operation) {
+		case LOGIN -> post("/login", new LoginRequest("load-" + random.nextInt(users), PASSWORD), null);
+		case REFRESH -> throw new IllegalArgumentException("refresh requests are built by send");
+		case TWEET -> post("/tweets", new CreateTweetDto("load tweet " + random.nextLong()),
+				tokens.get(random.nextInt(tokens.size())));
+		case FEED -> HttpRequest.newBuilder(uri("/feed?page=" + random.nextInt(3) + "&pageSize=10"))
+				.header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())))
+				.GET()
+				.build();
+		};
+	}
+
+	private HttpRequest post(String path, Object body, String token) throws IOException {
+		var builder = HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return builder.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static void expectOk(HttpResponse<String> response) {
+		assertThat(response.statusCode()).as("%s %s", response.request().uri(), response.body()).isLessThan(300);
+	}
+
+	private Map<Operation, Integer> parseMix() {
+		var weights = new EnumMap<Operation, Integer>(Operation.class);
+		for (var part : mix.split(",")) {
+			var pair = part.split("=");
+			weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+		}
+		return weights;
+	}
+
+	private static Operation pick(Map<Operation, Integer> weights, int totalWeight) {
+		var roll = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (var entry : weights.entrySet()) {
+			roll -= entry.getValue();
+			if (roll < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException("empty load mix");
+	}
+
+	private void print(PrintStream out, Operation operation, Histogram histogram, long errorCount) {
+		out.printf("%-7s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation.name().toLowerCase(),
+				histogram.getTotalCount(), errorCount, (double) histogram.getTotalCount() / durationSeconds,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getMaxValue()));
+	}
+
+	private static void writeDistribution(Operation operation, Histogram histogram) throws IOException {
+		var file = Path.of("target", "load", operation.name().toLowerCase() + ".hgrm");
+		try (var out = new PrintStream(Files.newOutputStream(file))) {
+			histogram.outputPercentileDistribution(out, 1_000_000.0);
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+}
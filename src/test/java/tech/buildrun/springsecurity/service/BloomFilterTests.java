@@ -0,0 +1,39 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+	@Test
+	void neverRejectsInsertedValues() {
+		var filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user-" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("user-" + i)).isTrue();
+		}
+		assertThat(filter.insertions()).isEqualTo(10_000);
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		var filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user-" + i);
+		}
+
+		var falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("bot-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+		assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+	}
+
+}
@@ -0,0 +1,96 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import tech.buildrun.springsecurity.controller.dto.FeedDto;
+
+class FeedPageCacheTests {
+
+	@Test
+	void concurrentMissesLoadOnce() throws Exception {
+		var cache = new FeedPageCache(new FeedVersion(Duration.ZERO), 3, 50, 64);
+		var loads = new AtomicInteger();
+		var release = new CountDownLatch(1);
+		Supplier<FeedDto> loader = () -> {
+			loads.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return page(1);
+		};
+
+		var executor = Executors.newFixedThreadPool(8);
+		try {
+			var results = new ArrayList<Future<FeedDto>>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.get(0, 10, 1, loader)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (var result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(page(1));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void feedChangesInvalidatePages() {
+		var version = new FeedVersion(Duration.ZERO);
+		var cache = new FeedPageCache(version, 3, 50, 64);
+		var loads = new AtomicInteger();
+		Supplier<FeedDto> loader = () -> page(loads.incrementAndGet());
+
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(1));
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(1));
+
+		version.bump();
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(2));
+
+		// Total reconciliado sem mudança de versão
+		assertThat(cache.get(0, 10, 2, loader)).isEqualTo(page(3));
+
+		// Fora das primeiras páginas, sempre do banco
+		cache.get(3, 10, 2, loader);
+		cache.get(3, 10, 2, loader);
+		assertThat(loads).hasValue(5);
+	}
+
+	@Test
+	void pagesReadBeforeTheChangeSettlesExpire() throws Exception {
+		var version = new FeedVersion(Duration.ofMillis(300));
+		var cache = new FeedPageCache(version, 3, 50, 64);
+		var loads = new AtomicInteger();
+		Supplier<FeedDto> loader = () -> page(loads.incrementAndGet());
+
+		version.bump();
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(1));
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(1));
+
+		Thread.sleep(400);
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(2));
+		assertThat(cache.get(0, 10, 1, loader)).isEqualTo(page(2));
+	}
+
+	private static FeedDto page(int load) {
+		return new FeedDto(List.of(), 0, 10, load, load);
+	}
+
+}
@@ -0,0 +1,79 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.buildrun.springsecurity.repository.UserRepository;
+
+class FeedStreamServiceTests {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+
+	private final FeedStreamService service = new FeedStreamService(userRepository,
+			new ObjectMapper().findAndRegisterModules(), 16, 4, FeedStreamService.Overflow.DROP_OLDEST, 10, 1, 100,
+			Duration.ofMinutes(1), Duration.ofMillis(100), 4);
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void stalledClientDoesNotHoldBackTheOthers() throws Exception {
+		when(userRepository.findUsernameById(any())).thenReturn(Optional.of("admin"));
+		var sending = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		var delivered = new CountDownLatch(1);
+		// Cliente que parou de ler: o envio fica preso na escrita
+		service.subscribe(null, new SseEmitter() {
+			@Override
+			public void send(Set<DataWithMediaType> items) throws IOException {
+				sending.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			service.publish(1L, "primeiro", UUID.randomUUID(), Instant.now());
+			assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// Com a única thread de envio presa, o novo assinante espera na fila
+			service.subscribe(null, new SseEmitter() {
+				@Override
+				public void send(Set<DataWithMediaType> items) {
+					delivered.countDown();
+				}
+			});
+			service.publish(2L, "segundo", UUID.randomUUID(), Instant.now());
+			assertThat(delivered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+			service.disconnectStalled();
+			assertThat(service.subscriberCount()).isEqualTo(1);
+			assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			release.countDown();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import tech.buildrun.springsecurity.repository.FollowRepository;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+class HomeTimelineServiceTests {
+
+	private final TweetRepository tweetRepository = mock(TweetRepository.class);
+
+	private final FollowRepository followRepository = mock(FollowRepository.class);
+
+	private final HomeTimelineService service = new HomeTimelineService(tweetRepository, followRepository, 800,
+			10000, 100, 1000);
+
+	@Test
+	void tweetCreatedWhileTheTimelineLoadsIsKept() {
+		var reader = UUID.randomUUID();
+		var author = UUID.randomUUID();
+		when(followRepository.findFollowerIds(any(), any(Limit.class))).thenReturn(List.of(reader));
+		when(tweetRepository.findTimelineIds(any(), any(Limit.class))).thenAnswer(invocation -> {
+			// Tweet criado depois da consulta ter lido o banco
+			service.fanOut(author, 42L);
+			return List.of(41L, 40L);
+		});
+		when(tweetRepository.findFeedItemsByIds(anyCollection())).thenReturn(List.of());
+
+		service.read(reader, 0, 10);
+
+		verify(tweetRepository).findFeedItemsByIds(List.of(42L, 41L, 40L));
+	}
+
+	@Test
+	void tweetSeenByTheLoadIsNotDuplicated() {
+		var reader = UUID.randomUUID();
+		var author = UUID.randomUUID();
+		when(followRepository.findFollowerIds(any(), any(Limit.class))).thenReturn(List.of(reader));
+		when(tweetRepository.findTimelineIds(any(), any(Limit.class))).thenAnswer(invocation -> {
+			service.fanOut(author, 42L);
+			return List.of(42L, 41L);
+		});
+		when(tweetRepository.findFeedItemsByIds(anyCollection())).thenReturn(List.of());
+
+		service.read(reader, 0, 10);
+
+		verify(tweetRepository).findFeedItemsByIds(List.of(42L, 41L));
+	}
+
+	@Test
+	void deletedTweetIsSkippedAndThePageBackfilled() {
+		var reader = UUID.randomUUID();
+		when(tweetRepository.findTimelineIds(any(), any(Limit.class))).thenReturn(List.of(44L, 43L, 42L, 41L));
+		when(tweetRepository.findFeedItemsByIds(anyCollection())).thenReturn(List.of());
+		service.read(reader, 0, 2);
+
+		service.remove(43L);
+		service.read(reader, 0, 2);
+		service.read(reader, 1, 2);
+
+		verify(tweetRepository).findFeedItemsByIds(List.of(44L, 42L));
+		verify(tweetRepository).findFeedItemsByIds(List.of(41L));
+	}
+
+	@Test
+	void followedCelebritiesAreReadAgainOnlyAfterAPromotion() {
+		var service = new HomeTimelineService(tweetRepository, followRepository, 800, 1, 100, 1000);
+		var reader = UUID.randomUUID();
+		var celebrity = UUID.randomUUID();
+		when(followRepository.findFollowerIds(any(), any(Limit.class)))
+				.thenReturn(List.of(reader, UUID.randomUUID()));
+		when(followRepository.findFollowedIds(reader)).thenReturn(List.of(celebrity));
+		service.fanOut(celebrity, 1L);
+
+		service.read(reader, 0, 10);
+		service.read(reader, 1, 10);
+		verify(followRepository).findFollowedIds(reader);
+		verify(tweetRepository, times(2)).findFeedItemsByAuthors(eq(List.of(celebrity)), any(Limit.class));
+
+		service.fanOut(UUID.randomUUID(), 2L);
+		service.read(reader, 0, 10);
+		verify(followRepository, times(2)).findFollowedIds(reader);
+	}
+
+	@Test
+	void pagesBeyondTheCapacityAreEmpty() {
+		assertThat(service.read(UUID.randomUUID(), Integer.MAX_VALUE, 100)).isEmpty();
+	}
+
+}
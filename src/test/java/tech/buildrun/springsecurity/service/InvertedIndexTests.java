@@ -0,0 +1,72 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InvertedIndexTests {
+
+	@Test
+	void requiresEveryTermAndRanksByFrequency() {
+		var index = new InvertedIndex();
+		index.add(1, "Café com leite");
+		index.add(2, "cafe cafe cafe");
+		index.add(3, "leite");
+		index.add(4, "café, leite e pão");
+
+		assertThat(index.search("CAFE", 0, 10).tweetIds()).containsExactly(2L, 4L, 1L);
+		assertThat(index.search("café leite", 0, 10).tweetIds()).containsExactly(4L, 1L);
+		assertThat(index.search("café leite", 0, 10).totalHits()).isEqualTo(2);
+		assertThat(index.search("chá", 0, 10).tweetIds()).isEmpty();
+	}
+
+	@Test
+	void pagesThroughTheRanking() {
+		var index = new InvertedIndex();
+		for (long id = 1; id <= 5; id++) {
+			index.add(id, "spring boot");
+		}
+
+		var second = index.search("spring", 1, 2);
+		assertThat(second.tweetIds()).containsExactly(3L, 2L);
+		assertThat(second.totalHits()).isEqualTo(5);
+	}
+
+	@Test
+	void removedTweetsAreNotReturned() {
+		var index = new InvertedIndex();
+		index.add(1, "hello world");
+		index.add(2, "hello there");
+		index.remove(1);
+
+		assertThat(index.search("hello", 0, 10).tweetIds()).containsExactly(2L);
+		assertThat(index.documentCount()).isEqualTo(1);
+
+		index.compact();
+		assertThat(index.search("world", 0, 10).tweetIds()).isEmpty();
+	}
+
+	@Test
+	void segmentRoundTrip(@TempDir Path dir) throws IOException {
+		var index = new InvertedIndex();
+		index.add(10, "olá mundo");
+		index.add(20, "mundo");
+		index.add(30, "");
+		index.remove(20);
+
+		var segment = dir.resolve("search.seg");
+		index.write(segment);
+
+		var loaded = new InvertedIndex();
+		loaded.read(segment);
+		assertThat(loaded.documentCount()).isEqualTo(2);
+		assertThat(loaded.maxTweetId()).isEqualTo(30);
+		assertThat(loaded.search("ola mundo", 0, 10).tweetIds()).containsExactly(10L);
+		assertThat(loaded.search("mundo", 0, 10).tweetIds()).containsExactly(10L);
+	}
+
+}
@@ -0,0 +1,81 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import tech.buildrun.springsecurity.controller.dto.TrendDto;
+
+class TrendingWindowTests {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void ranksMostFrequentTokens() {
+		var window = new TrendingWindow(Duration.ofMinutes(5), 5, 4, 256, 2);
+		var now = 100 * MINUTE;
+		for (int i = 0; i < 3; i++) {
+			window.add("java", now);
+		}
+		window.add("spring", now);
+		window.add("spring", now);
+		window.add("kotlin", now);
+
+		window.refresh(now);
+
+		assertThat(window.top()).containsExactly(new TrendDto("java", 3), new TrendDto("spring", 2));
+	}
+
+	@Test
+	void oldBucketsLeaveTheWindow() {
+		var window = new TrendingWindow(Duration.ofMinutes(5), 5, 4, 256, 3);
+		var start = 100 * MINUTE;
+		window.add("old", start);
+		for (int minute = 1; minute <= 4; minute++) {
+			window.refresh(start + minute * MINUTE);
+		}
+		assertThat(window.estimate("old", start + 4 * MINUTE)).isEqualTo(1);
+
+		for (int minute = 5; minute <= 6; minute++) {
+			window.refresh(start + minute * MINUTE);
+		}
+		window.add("new", start + 6 * MINUTE);
+		assertThat(window.estimate("old", start + 6 * MINUTE)).isZero();
+
+		window.refresh(start + 6 * MINUTE);
+		assertThat(window.top()).containsExactly(new TrendDto("new", 1));
+	}
+
+	@Test
+	void risingTokenReplacesTheWeakestCandidateBeforeTheNextRefresh() {
+		// topK 1: até 8 candidatos entre duas reavaliações
+		var window = new TrendingWindow(Duration.ofMinutes(5), 5, 4, 256, 1);
+		var now = 100 * MINUTE;
+		for (int i = 0; i < 8; i++) {
+			window.add("early-" + i, now);
+			window.add("early-" + i, now);
+		}
+		for (int i = 0; i < 5; i++) {
+			window.add("rising", now);
+		}
+
+		window.refresh(now);
+
+		assertThat(window.top()).containsExactly(new TrendDto("rising", 5));
+	}
+
+	@Test
+	void tokensWithTheSameHashCodeAreCountedApart() {
+		assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+		var window = new TrendingWindow(Duration.ofMinutes(5), 5, 4, 256, 2);
+		var now = 100 * MINUTE;
+		for (int i = 0; i < 50; i++) {
+			window.add("Aa", now);
+		}
+
+		assertThat(window.estimate("BB", now)).isZero();
+	}
+
+}
@@ -0,0 +1,80 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import tech.buildrun.springsecurity.entities.Tweet;
+import tech.buildrun.springsecurity.entities.User;
+
+// Roda com um fuso diferente de UTC: os demais testes rodam em UTC, onde o
+// fuso da JVM não altera o valor gravado
+class TweetBatchWriterTests {
+
+	private static final Instant CREATED = Instant.parse("2025-03-01T12:00:00.123456Z");
+
+	private TimeZone defaultTimeZone;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		defaultTimeZone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone("America/Sao_Paulo"));
+		jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new Driver(),
+				"jdbc:h2:mem:tweetbatchwriter;DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("drop table if exists tb_tweets");
+	}
+
+	@AfterEach
+	void tearDown() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	@Test
+	void mysqlTimestampsAreWrittenInUtc() {
+		// datetime(6) do MySQL: sem fuso, guarda o horário UTC
+		jdbcTemplate.execute("create table tb_tweets (tweet_id bigint, content varchar(140), creation_time_stamp timestamp(6), user_id binary(16))");
+
+		new TweetBatchWriter(jdbcTemplate, true).insertAll(List.of(tweet()));
+
+		var stored = jdbcTemplate.queryForObject("select creation_time_stamp from tb_tweets", LocalDateTime.class);
+		assertThat(stored).isEqualTo(LocalDateTime.ofInstant(CREATED, ZoneOffset.UTC));
+	}
+
+	@Test
+	void timestampsWithTimeZoneKeepTheInstant() {
+		jdbcTemplate.execute("create table tb_tweets (tweet_id bigint, content varchar(140), creation_time_stamp timestamp(6) with time zone, user_id uuid)");
+
+		new TweetBatchWriter(jdbcTemplate, false).insertAll(List.of(tweet()));
+
+		var stored = jdbcTemplate.queryForObject("select creation_time_stamp from tb_tweets", OffsetDateTime.class);
+		assertThat(stored.toInstant()).isEqualTo(CREATED.truncatedTo(ChronoUnit.MICROS));
+	}
+
+	private static Tweet tweet() {
+		var user = new User();
+		user.setUserId(UUID.randomUUID());
+		var tweet = new Tweet();
+		tweet.setTweetId(1L);
+		tweet.setContent("fuso");
+		tweet.setCreationTimeStamp(CREATED);
+		tweet.setUser(user);
+		return tweet;
+	}
+
+}
@@ -0,0 +1,61 @@
+package tech.buildrun.springsecurity.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tech.buildrun.springsecurity.controller.dto.TweetTextDto;
+import tech.buildrun.springsecurity.repository.TweetRepository;
+
+class TweetSearchServiceTests {
+
+	private final TweetRepository tweetRepository = mock(TweetRepository.class);
+
+	private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+
+	@Test
+	void segmentIsReconciledWithTweetsStoredOutOfIdOrder(@TempDir Path dir) throws IOException {
+		var segment = dir.resolve("search.seg");
+		var snapshot = new InvertedIndex();
+		snapshot.add(1, "alfa");
+		snapshot.add(3, "gama");
+		snapshot.write(segment);
+
+		// 2 foi gravado depois do snapshot, que já tinha o 3; o 3 foi removido
+		when(tweetRepository.findActiveIdsBetween(0L, 3L)).thenReturn(List.of(1L, 2L));
+		when(tweetRepository.findTweetTextsByIds(anyCollection())).thenReturn(List.of(new TweetTextDto(2L, "beta")));
+		when(tweetRepository.findTweetTextsAfter(eq(3L), any(Limit.class)))
+				.thenReturn(List.of(new TweetTextDto(4L, "delta")));
+		when(tweetRepository.findTweetTextsAfter(eq(4L), any(Limit.class))).thenReturn(List.of());
+		when(tweetRepository.findFeedItemsByIds(anyCollection())).thenReturn(List.of());
+		when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+			invocation.getArgument(0, Runnable.class).run();
+			return null;
+		});
+
+		var service = new TweetSearchService(tweetRepository, mock(PlatformTransactionManager.class), taskScheduler,
+				segment.toString(), 100);
+		service.start();
+
+		assertThat(service.isReady()).isTrue();
+		assertThat(service.search("beta", 0, 10).totalHits()).isEqualTo(1);
+		assertThat(service.search("gama", 0, 10).totalHits()).isZero();
+		assertThat(service.search("delta", 0, 10).totalHits()).isEqualTo(1);
+		assertThat(service.search("alfa", 0, 10).totalHits()).isEqualTo(1);
+	}
+
+}